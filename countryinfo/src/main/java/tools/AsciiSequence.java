@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reusable, mutable {@link CharSequence} view over a region of ASCII bytes,
+ * so byte-oriented input can go through the CharSequence lookups without
+ * decoding into Strings. Not thread-safe; use one instance per thread.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+final class AsciiSequence implements CharSequence
+{
+    private ByteBuffer buffer;
+    private byte[] array;
+    private int offset;
+    private int length;
+
+    /** View {@code buffer[start, end)} by absolute index. */
+    AsciiSequence wrap(ByteBuffer buffer, int start, int end)
+    {
+        this.buffer = buffer;
+        this.array = null;
+        this.offset = start;
+        this.length = end - start;
+
+        return this;
+    }
+
+    /** View {@code array[start, end)}. */
+    AsciiSequence wrap(byte[] array, int start, int end)
+    {
+        this.buffer = null;
+        this.array = array;
+        this.offset = start;
+        this.length = end - start;
+
+        return this;
+    }
+
+    @Override
+    public int length()
+    {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index)
+    {
+        if (index < 0 || index >= length) { throw new IndexOutOfBoundsException(); }
+
+        byte b = null != array ? array[offset + index] : buffer.get(offset + index);
+
+        return (char) (b & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end)
+    {
+        return toString().substring(start, end);
+    }
+
+    @Override
+    public String toString()
+    {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) { chars[i] = charAt(i); }
+
+        return new String(chars);
+    }
+}
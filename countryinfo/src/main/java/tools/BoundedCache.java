@@ -0,0 +1,375 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded concurrent cache with W-TinyLFU eviction.
+ *
+ * <p>
+ * The cache is split into lock-striped segments by key hash. Each segment
+ * has a small LRU admission window (about 1% of its capacity) in front of a
+ * main LRU area, and a count-min sketch of recent key frequencies. A key
+ * pushed out of the window only enters the main area if it has been asked
+ * for more often than the entry it would evict, so a burst of one-off keys
+ * cannot flush the popular ones. The sketch counters are halved
+ * periodically so that frequencies follow changes in the workload.
+ * </p>
+ *
+ * <p>
+ * Keys are {@link Key}s rather than Strings, so a caller can probe with one
+ * reusable key per thread and copy it only when it stores a new entry.
+ * </p>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+final class BoundedCache<V>
+{
+    private final Segment<V>[] segments;
+    private final int mask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    BoundedCache(int capacity)
+    {
+        if (capacity <= 0) { throw new IllegalArgumentException("capacity must be positive: " + capacity); }
+
+        // Up to 16 segments, each holding at least 64 entries.
+        int count = Math.max(1, Math.min(16, Integer.highestOneBit(capacity / 64)));
+
+        this.segments = new Segment[count];
+        this.mask = count - 1;
+
+        for (int i = 0; i < count; i++)
+        {
+            segments[i] = new Segment<>(capacity / count + (i < capacity % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * Get the value for a key, or null; counts the access either way.
+     */
+    V get(Key key)
+    {
+        int hash = spread(key.hashCode());
+        Segment<V> s = segments[hash & mask];
+        V value;
+
+        synchronized (s)
+        {
+            value = s.get(key, hash);
+        }
+
+        (null == value ? misses : hits).increment();
+
+        return value;
+    }
+
+    /**
+     * Store a value. The key must not be changed afterwards: pass a
+     * {@link Key#copy() copy} of a reused probe.
+     */
+    void put(Key key, V value)
+    {
+        int hash = spread(key.hashCode());
+        Segment<V> s = segments[hash & mask];
+        boolean evicted;
+
+        synchronized (s)
+        {
+            evicted = s.put(key, hash, value);
+        }
+
+        if (evicted) { evictions.increment(); }
+    }
+
+    int size()
+    {
+        int size = 0;
+
+        for (Segment<V> s : segments)
+        {
+            synchronized (s)
+            {
+                size += s.window.size() + s.main.size();
+            }
+        }
+
+        return size;
+    }
+
+    long hits()      { return hits.sum(); }
+
+    long misses()    { return misses.sum(); }
+
+    long evictions() { return evictions.sum(); }
+
+    private static int spread(int h)
+    {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Segment<V>
+    {
+        final LinkedHashMap<Key, V> window = new LinkedHashMap<>(16, 0.75f, true);
+        final LinkedHashMap<Key, V> main = new LinkedHashMap<>(16, 0.75f, true);
+        final int windowCapacity;
+        final int mainCapacity;
+        final FrequencySketch sketch;
+
+        Segment(int capacity)
+        {
+            this.windowCapacity = Math.max(1, capacity / 100);
+            this.mainCapacity = Math.max(1, capacity - windowCapacity);
+            this.sketch = new FrequencySketch(capacity);
+        }
+
+        V get(Key key, int hash)
+        {
+            sketch.increment(hash);
+
+            V value = window.get(key);
+            return null != value ? value : main.get(key);
+        }
+
+        /**
+         * Returns whether an entry left the cache.
+         */
+        boolean put(Key key, int hash, V value)
+        {
+            if (main.containsKey(key))
+            {
+                main.put(key, value);
+                return false;
+            }
+
+            window.put(key, value);
+            if (window.size() <= windowCapacity) { return false; }
+
+            Map.Entry<Key, V> candidate = eldest(window);
+            window.remove(candidate.getKey());
+
+            if (main.size() < mainCapacity)
+            {
+                main.put(candidate.getKey(), candidate.getValue());
+                return false;
+            }
+
+            Map.Entry<Key, V> victim = eldest(main);
+
+            if (sketch.frequency(spread(candidate.getKey().hashCode()))
+                    > sketch.frequency(spread(victim.getKey().hashCode())))
+            {
+                main.remove(victim.getKey());
+                main.put(candidate.getKey(), candidate.getValue());
+            }
+
+            return true;
+        }
+
+        private static <V> Map.Entry<Key, V> eldest(LinkedHashMap<Key, V> map)
+        {
+            Iterator<Map.Entry<Key, V>> it = map.entrySet().iterator();
+            return it.next();
+        }
+    }
+
+    /**
+     * Cache key over a reusable character array, compared by content. A
+     * probe is refilled for each lookup with {@link #set}; stored keys are
+     * {@link #copy() copies} that are never changed. Not thread-safe.
+     */
+    static final class Key implements CharSequence
+    {
+        private char[] chars;
+        private int length;
+        private int hash;
+
+        Key(int capacity)
+        {
+            this.chars = new char[Math.max(1, capacity)];
+        }
+
+        /**
+         * Refill the key with {@code s[start, end)}, upper-casing ASCII
+         * letters if {@code upper} is set.
+         */
+        Key set(CharSequence s, int start, int end, boolean upper)
+        {
+            int n = end - start;
+            if (chars.length < n) { chars = new char[Math.max(n, chars.length * 2)]; }
+
+            int h = 0;
+
+            for (int i = 0; i < n; i++)
+            {
+                char c = s.charAt(start + i);
+                if (upper && c >= 'a' && c <= 'z') { c -= 0x20; }
+
+                chars[i] = c;
+                h = 31 * h + c;
+            }
+
+            this.length = n;
+            this.hash = h;
+
+            return this;
+        }
+
+        /** Get an exact-size copy, suitable for storing. */
+        Key copy()
+        {
+            Key k = new Key(length);
+            System.arraycopy(chars, 0, k.chars, 0, length);
+            k.length = length;
+            k.hash = hash;
+
+            return k;
+        }
+
+        @Override
+        public int length()
+        {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index)
+        {
+            if (index < 0 || index >= length) { throw new IndexOutOfBoundsException(); }
+
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end)
+        {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) { return true; }
+            if (!(o instanceof Key)) { return false; }
+
+            Key k = (Key) o;
+            if (k.length != length || k.hash != hash) { return false; }
+
+            for (int i = 0; i < length; i++)
+            {
+                if (chars[i] != k.chars[i]) { return false; }
+            }
+
+            return true;
+        }
+
+        @Override
+        public String toString()
+        {
+            return new String(chars, 0, length);
+        }
+    }
+
+    /**
+     * Count-min sketch of 4 rows of 4-bit counters packed in longs, with
+     * periodic halving.
+     */
+    private static final class FrequencySketch
+    {
+        private static final long[] SEEDS =
+        {
+            0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L
+        };
+
+        private final long[] table;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity)
+        {
+            // 16 counters per long, about 4 counters per entry per row.
+            int longs = Integer.highestOneBit(Math.max(4, capacity) - 1) << 1;
+
+            this.table = new long[longs];
+            this.sampleSize = 10 * Math.max(capacity, 16);
+        }
+
+        int frequency(int hash)
+        {
+            int min = 15;
+
+            for (int row = 0; row < 4; row++)
+            {
+                int index = index(hash, row);
+                int shift = offset(hash, row);
+                min = Math.min(min, (int) ((table[index] >>> shift) & 0xF));
+            }
+
+            return min;
+        }
+
+        void increment(int hash)
+        {
+            for (int row = 0; row < 4; row++)
+            {
+                int index = index(hash, row);
+                int shift = offset(hash, row);
+
+                if (((table[index] >>> shift) & 0xF) != 0xF) { table[index] += 1L << shift; }
+            }
+
+            if (++additions >= sampleSize) { age(); }
+        }
+
+        private void age()
+        {
+            for (int i = 0; i < table.length; i++)
+            {
+                table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+            }
+
+            additions /= 2;
+        }
+
+        private int index(int hash, int row)
+        {
+            long h = (hash + SEEDS[row]) * SEEDS[row];
+            return (int) (h >>> 40) & (table.length - 1);
+        }
+
+        private static int offset(int hash, int row)
+        {
+            // The counter within the long: 4 bits each, distinct per row.
+            return (((hash >>> (row << 3)) & 3) << 2 | row) << 2;
+        }
+    }
+}
@@ -0,0 +1,373 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Columnar resolution of ISO 3166-1 codes into CountryInfo ordinals.
+ *
+ * <pre>
+ * <span style="color: darkgreen;">// Resolve a column of alpha-2/alpha-3 codes.</span>
+ * short[] ordinals = new short[codes.length];
+ * long[] misses = BulkResolver.{@link #newMissBitmap(int) newMissBitmap}(codes.length);
+ * int missCount = BulkResolver.DEFAULT.{@link #resolve(CharSequence[], short[], long[]) resolve}(codes, ordinals, misses);
+ *
+ * <span style="color: darkgreen;">// Map an ordinal back.</span>
+ * CountryInfo ci = CountryInfo.{@link CountryInfo#forOrdinal(int) forOrdinal}(ordinals[i]);
+ * </pre>
+ *
+ * <p>
+ * Every input element gets an ordinal, {@link CountryInfo#NO_ORDINAL} for a
+ * miss. Misses are also flagged in an optional bitmap (bit {@code i % 64} of
+ * word {@code i / 64}) rather than by exceptions. Inputs at least as large as
+ * the parallel threshold are split across a fork-join pool, in slices aligned
+ * to 64 elements so that each bitmap word is written by a single task.
+ * </p>
+ *
+ * <p>
+ * Instances are immutable and thread-safe.
+ * </p>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public final class BulkResolver
+{
+    /**
+     * Default number of elements from which resolution runs in parallel.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
+
+    /**
+     * Resolver using {@link #DEFAULT_PARALLEL_THRESHOLD} and the common pool.
+     */
+    public static final BulkResolver DEFAULT = new BulkResolver(DEFAULT_PARALLEL_THRESHOLD);
+
+    private final int parallelThreshold;
+    private final ForkJoinPool pool;
+
+    /**
+     * Create a resolver that uses the common fork-join pool.
+     *
+     * @param parallelThreshold
+     *         Number of elements from which resolution runs in parallel, also
+     *         used as the slice size. {@code Integer.MAX_VALUE} disables it.
+     */
+    public BulkResolver(int parallelThreshold)
+    {
+        this(parallelThreshold, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a resolver.
+     *
+     * @param parallelThreshold
+     *         Number of elements from which resolution runs in parallel, also
+     *         used as the slice size. {@code Integer.MAX_VALUE} disables it.
+     *
+     * @param pool
+     *         Pool that runs the parallel slices.
+     */
+    public BulkResolver(int parallelThreshold, ForkJoinPool pool)
+    {
+        if (parallelThreshold < 64) { throw new IllegalArgumentException("parallel threshold below 64"); }
+        if (null == pool) { throw new IllegalArgumentException("pool is null"); }
+
+        this.parallelThreshold = parallelThreshold;
+        this.pool = pool;
+    }
+
+    /**
+     * Allocate a miss bitmap large enough for {@code size} elements.
+     */
+    public static long[] newMissBitmap(int size)
+    {
+        return new long[(size + 63) >>> 6];
+    }
+
+    /**
+     * Tell whether element {@code index} is flagged in a miss bitmap.
+     */
+    public static boolean isMiss(long[] misses, int index)
+    {
+        return 0 != (misses[index >>> 6] & (1L << index));
+    }
+
+    /**
+     * Resolve ISO 3166-1 alpha-2 and/or alpha-3 codes, as by
+     * {@link CountryInfo#tryForISO(CharSequence)}.
+     *
+     * @param codes
+     *         The codes. Null elements are misses.
+     *
+     * @param ordinals
+     *         Receives one ordinal per code.
+     *
+     * @param misses
+     *         Receives the miss flags, or null. See {@link #newMissBitmap(int)}.
+     *
+     * @return
+     *         The number of misses.
+     */
+    public int resolve(final CharSequence[] codes, short[] ordinals, long[] misses)
+    {
+        return run(codes.length, ordinals, misses, new Source()
+        {
+            @Override
+            public CountryInfo get(int index, AsciiSequence scratch)
+            {
+                CharSequence code = codes[index];
+
+                return null == code ? null : CountryInfo.lookupISO(code, 0, code.length());
+            }
+        });
+    }
+
+    /**
+     * Resolve fixed-width ISO 3166-1 alpha-2 or alpha-3 codes packed back to
+     * back in a character sequence, e.g. "JPUSFR".
+     *
+     * @param packed
+     *         The codes; its length must be a multiple of {@code width}.
+     *
+     * @param width
+     *         2 for alpha-2 codes, 3 for alpha-3 codes.
+     *
+     * @param ordinals
+     *         Receives one ordinal per code.
+     *
+     * @param misses
+     *         Receives the miss flags, or null.
+     *
+     * @return
+     *         The number of misses.
+     */
+    public int resolve(final CharSequence packed, final int width, short[] ordinals, long[] misses)
+    {
+        return run(count(packed.length(), width), ordinals, misses, new Source()
+        {
+            @Override
+            public CountryInfo get(int index, AsciiSequence scratch)
+            {
+                int start = index * width;
+
+                return CountryInfo.lookupISO(packed, start, start + width);
+            }
+        });
+    }
+
+    /**
+     * Resolve fixed-width ASCII ISO 3166-1 alpha-2 or alpha-3 codes packed
+     * back to back in a byte array.
+     *
+     * @param packed
+     *         The codes; its length must be a multiple of {@code width}.
+     *
+     * @param width
+     *         2 for alpha-2 codes, 3 for alpha-3 codes.
+     *
+     * @param ordinals
+     *         Receives one ordinal per code.
+     *
+     * @param misses
+     *         Receives the miss flags, or null.
+     *
+     * @return
+     *         The number of misses.
+     */
+    public int resolve(final byte[] packed, final int width, short[] ordinals, long[] misses)
+    {
+        return run(count(packed.length, width), ordinals, misses, new Source()
+        {
+            @Override
+            public CountryInfo get(int index, AsciiSequence scratch)
+            {
+                int start = index * width;
+
+                return CountryInfo.lookupISO(scratch.wrap(packed, start, start + width), 0, width);
+            }
+        });
+    }
+
+    /**
+     * Resolve fixed-width ASCII ISO 3166-1 alpha-2 or alpha-3 codes packed
+     * back to back between the position and the limit of a buffer. The
+     * buffer's position is not changed.
+     *
+     * @param packed
+     *         The codes; its remaining length must be a multiple of
+     *         {@code width}.
+     *
+     * @param width
+     *         2 for alpha-2 codes, 3 for alpha-3 codes.
+     *
+     * @param ordinals
+     *         Receives one ordinal per code.
+     *
+     * @param misses
+     *         Receives the miss flags, or null.
+     *
+     * @return
+     *         The number of misses.
+     */
+    public int resolve(final ByteBuffer packed, final int width, short[] ordinals, long[] misses)
+    {
+        final int base = packed.position();
+
+        return run(count(packed.remaining(), width), ordinals, misses, new Source()
+        {
+            @Override
+            public CountryInfo get(int index, AsciiSequence scratch)
+            {
+                int start = base + index * width;
+
+                return CountryInfo.lookupISO(scratch.wrap(packed, start, start + width), 0, width);
+            }
+        });
+    }
+
+    /**
+     * Resolve ISO 3166-1 numeric codes, as by {@link CountryInfo#tryForISO(int)}.
+     *
+     * @param codes
+     *         The codes.
+     *
+     * @param ordinals
+     *         Receives one ordinal per code.
+     *
+     * @param misses
+     *         Receives the miss flags, or null.
+     *
+     * @return
+     *         The number of misses.
+     */
+    public int resolve(final int[] codes, short[] ordinals, long[] misses)
+    {
+        return run(codes.length, ordinals, misses, new Source()
+        {
+            @Override
+            public CountryInfo get(int index, AsciiSequence scratch)
+            {
+                return CountryInfo.lookupISO(codes[index]);
+            }
+        });
+    }
+
+    private static int count(int length, int width)
+    {
+        if (width != 2 && width != 3) { throw new IllegalArgumentException("width must be 2 or 3"); }
+        if (length % width != 0) { throw new IllegalArgumentException("input length is not a multiple of the width"); }
+
+        return length / width;
+    }
+
+    private int run(int size, short[] ordinals, long[] misses, Source source)
+    {
+        if (ordinals.length < size) { throw new IllegalArgumentException("ordinal array too small"); }
+        if (null != misses && misses.length < (size + 63) >>> 6) { throw new IllegalArgumentException("miss bitmap too small"); }
+
+        if (size < parallelThreshold)
+        {
+            return resolveRange(source, 0, size, ordinals, misses);
+        }
+
+        return pool.invoke(new Slice(source, 0, size, ordinals, misses, parallelThreshold));
+    }
+
+    /**
+     * Resolve {@code [from, to)}; {@code from} must be a multiple of 64.
+     */
+    private static int resolveRange(Source source, int from, int to, short[] ordinals, long[] misses)
+    {
+        AsciiSequence scratch = new AsciiSequence();
+        int missCount = 0;
+
+        for (int word = from; word < to; word += 64)
+        {
+            int end = Math.min(word + 64, to);
+            long bits = 0;
+
+            for (int i = word; i < end; i++)
+            {
+                CountryInfo ci = source.get(i, scratch);
+
+                if (null == ci)
+                {
+                    ordinals[i] = CountryInfo.NO_ORDINAL;
+                    bits |= 1L << i;
+                    missCount++;
+                }
+                else
+                {
+                    ordinals[i] = (short) ci.ordinal();
+                }
+            }
+
+            if (null != misses) { misses[word >>> 6] = bits; }
+        }
+
+        return missCount;
+    }
+
+    private interface Source
+    {
+        CountryInfo get(int index, AsciiSequence scratch);
+    }
+
+    private static final class Slice extends RecursiveTask<Integer>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Source source;
+        private final int from;
+        private final int to;
+        private final short[] ordinals;
+        private final long[] misses;
+        private final int sliceSize;
+
+        Slice(Source source, int from, int to, short[] ordinals, long[] misses, int sliceSize)
+        {
+            this.source = source;
+            this.from = from;
+            this.to = to;
+            this.ordinals = ordinals;
+            this.misses = misses;
+            this.sliceSize = sliceSize;
+        }
+
+        @Override
+        protected Integer compute()
+        {
+            if (to - from <= sliceSize)
+            {
+                return resolveRange(source, from, to, ordinals, misses);
+            }
+
+            // Split on a multiple of 64 so bitmap words are never shared.
+            int mid = (from + ((to - from) >>> 1)) & ~63;
+            if (mid <= from) { mid = from + 64; }
+
+            Slice left = new Slice(source, from, mid, ordinals, misses, sliceSize);
+            Slice right = new Slice(source, mid, to, ordinals, misses, sliceSize);
+            left.fork();
+
+            return right.compute() + left.join();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable index from country-code top-level domains to countries, with the
+ * inconsistencies found in the data while building it.
+ *
+ * <p>
+ * Two kinds of problems are reported by {@link #issues()}:
+ * </p>
+ * <ul>
+ *   <li>a ccTLD that is the alpha-2 code of a country other than the one(s)
+ *       it is listed for (e.g. ".ad" listed for Albania while AD is Andorra),
+ *       which then resolves to the owner of the alpha-2 code;</li>
+ *   <li>a ccTLD claimed by several countries none of which owns it as an
+ *       alpha-2 code, which then resolves to nothing.</li>
+ * </ul>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+final class CcTldIndex<T extends CountryAttributes>
+{
+    private final CodeIndex<T> index;
+    private final List<String> issues;
+
+    CcTldIndex(List<T> items)
+    {
+        Map<String, List<T>> labels = new LinkedHashMap<>();
+        Map<String, T> alpha2 = new HashMap<>();
+
+        for (T item : items)
+        {
+            alpha2.put(item.getISOa2().toLowerCase(Locale.ROOT), item);
+
+            String label = item.getCCTLD();
+            if (label.startsWith(".")) { label = label.substring(1); }
+            if (label.isEmpty()) { continue; }
+
+            label = label.toLowerCase(Locale.ROOT);
+            List<T> list = labels.get(label);
+            if (null == list) { labels.put(label, list = new ArrayList<>()); }
+            list.add(item);
+        }
+
+        List<String> found = new ArrayList<>();
+        Map<String, List<T>> resolved = new LinkedHashMap<>();
+
+        for (Map.Entry<String, List<T>> e : labels.entrySet())
+        {
+            String label = e.getKey();
+            List<T> list = e.getValue();
+            T owner = alpha2.get(label);
+
+            // A label that is some country's alpha-2 code belongs to that
+            // country, whatever the ccTLD column says.
+            if (null != owner)
+            {
+                if (list.size() != 1 || list.get(0) != owner)
+                {
+                    found.add("ccTLD ." + label + " is listed for " + list
+                            + " but is the alpha-2 code of " + owner + ", resolving to " + owner);
+                }
+
+                list = Collections.singletonList(owner);
+            }
+            else if (list.size() > 1)
+            {
+                found.add("ccTLD ." + label + " is shared by " + list + ", left unresolved");
+                continue;
+            }
+
+            resolved.put(label, list);
+        }
+
+        this.index = new CodeIndex<>(resolved);
+        this.issues = Collections.unmodifiableList(found);
+    }
+
+    /**
+     * Get the country for the last label of the host name or e-mail address
+     * in {@code name[start, end)}, or null. Trailing dots and surrounding
+     * whitespace are ignored.
+     */
+    T get(CharSequence name, int start, int end)
+    {
+        while (end > start && isTrailing(name.charAt(end - 1))) { end--; }
+        while (start < end && name.charAt(start) <= ' ') { start++; }
+
+        int label = end;
+
+        while (label > start)
+        {
+            char c = name.charAt(label - 1);
+            if (c == '.' || c == '@') { break; }
+            label--;
+        }
+
+        return index.get(name, label, end);
+    }
+
+    List<String> issues()
+    {
+        return issues;
+    }
+
+    private static boolean isTrailing(char c)
+    {
+        return c == '.' || c <= ' ';
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Point-in-time lookups of ISO 3166-1 codes, including codes that have been
+ * retired or reassigned since.
+ *
+ * <pre>
+ * LocalDate d = LocalDate.of(2005, 1, 1);
+ *
+ * CodeHistory.{@link #tryForISO(CharSequence, LocalDate) tryForISO}("ANT", d).getName();          <span style="color: darkgreen;">// "Netherlands Antilles"</span>
+ * CodeHistory.tryForISO("ANT", d).{@link HistoricCode#getSuccessors() getSuccessors}();     <span style="color: darkgreen;">// [BES, CUW, SXM]</span>
+ * CodeHistory.tryForISO("CS", LocalDate.of(1990, 1, 1)); <span style="color: darkgreen;">// Czechoslovakia</span>
+ * CodeHistory.tryForISO("CS", d);                       <span style="color: darkgreen;">// Serbia and Montenegro</span>
+ * CountryInfo.{@link CountryInfo#forISO(CharSequence, LocalDate) forISO}("ZAR", LocalDate.of(1990, 1, 1));  <span style="color: darkgreen;">// COD</span>
+ * </pre>
+ *
+ * <p>
+ * Every assignment of a code is kept with its validity interval; the
+ * current codes of the {@link CountryInfo} constants are open-ended, with
+ * a start date where the code is known to be recent. Assignments are
+ * indexed by the same dense code tables as {@link CountryInfo}, so a lookup
+ * inspects only the few assignments a code has ever had.
+ * </p>
+ *
+ * <p>
+ * The retired codes are those of ISO 3166-3 that matter for data since the
+ * 1970s, including codes later reused for another country ("GE" for the
+ * Gilbert Islands, "AI" for the French Afars and Issas); the dates are those
+ * of the ISO changes. Current codes with no recorded start date, including
+ * a few added before 1990 that are not listed (e.g. NAM, PLW), are treated
+ * as valid since before the first edition of ISO 3166 in 1974.
+ * </p>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public final class CodeHistory
+{
+    // alpha-3|alpha-2|numeric|valid from|valid to|same country|successors|name
+    // "-" for none.
+    private static final String[] RETIRED =
+    {
+        "ANT|AN|530|-|2010-12-15|-|BES CUW SXM|Netherlands Antilles",
+        "ZAR|ZR|-|-|1997-07-14|COD|-|Zaire",
+        "YUG|YU|891|-|2003-07-23|-|SRB MNE|Yugoslavia",
+        "SCG|CS|891|2003-07-23|2006-09-26|-|SRB MNE|Serbia and Montenegro",
+        "CSK|CS|200|-|1993-06-15|-|CZE SVK|Czechoslovakia",
+        "TMP|TP|-|-|2002-05-20|TLS|-|East Timor",
+        "ROM|-|-|-|2002-02-01|ROU|-|Romania",
+        "DDR|DD|278|-|1990-10-03|-|DEU|German Democratic Republic",
+        "-|-|280|-|1990-10-03|DEU|-|Germany, Federal Republic of",
+        "BUR|BU|-|-|1989-12-05|MMR|-|Burma",
+        "DHY|DY|-|-|1977-01-01|BEN|-|Dahomey",
+        "HVO|HV|-|-|1984-08-04|BFA|-|Upper Volta",
+        "SUN|SU|810|-|1992-08-30|-|ARM AZE BLR EST GEO KAZ KGZ LVA LTU MDA RUS TJK TKM UKR UZB|USSR",
+        "BYS|-|-|-|1992-08-30|BLR|-|Byelorussian SSR",
+        "-|-|736|-|2011-08-09|SDN|-|Sudan",
+        "YMD|YD|720|-|1990-05-22|-|YEM|Yemen, Democratic",
+        "-|-|886|-|1990-05-22|YEM|-|Yemen Arab Republic",
+        "GEL|GE|-|-|1979-07-12|KIR|-|Gilbert Islands",
+        "AFI|AI|-|-|1977-06-27|DJI|-|French Afars and Issas",
+    };
+
+    // alpha-3 of a current country|which of its codes (2, 3, n)|valid from
+    private static final String[] INTRODUCED =
+    {
+        "BES|23n|2010-12-15", "CUW|23n|2010-12-15", "SXM|23n|2010-12-15",
+        "SRB|23n|2006-09-26", "MNE|23n|2006-09-26",
+        "TLS|23|2002-05-20", "ROU|3|2002-02-01", "COD|23|1997-07-14",
+        "CZE|23n|1993-01-01", "SVK|23n|1993-01-01",
+        "DEU|n|1990-10-03", "MMR|23|1989-12-05", "BFA|23|1984-08-04", "BEN|23|1977-01-01",
+        "SSD|23n|2011-08-09", "SDN|n|2011-08-09",
+        "BLM|23n|2007-09-21", "MAF|23n|2007-09-21",
+        "GGY|23n|2006-03-29", "JEY|23n|2006-03-29", "IMN|23n|2006-03-29",
+        "ALA|23n|2004-02-13", "PSE|23n|1999-10-01",
+        "ERI|23n|1993-05-24", "MKD|23n|1993-09-14",
+        "HRV|23n|1992-05-22", "SVN|23n|1992-05-22", "BIH|23n|1992-05-22",
+        "ARM|23n|1992-08-30", "AZE|23n|1992-08-30", "EST|23n|1992-08-30", "GEO|23n|1992-08-30",
+        "KAZ|23n|1992-08-30", "KGZ|23n|1992-08-30", "LVA|23n|1992-08-30", "LTU|23n|1992-08-30",
+        "MDA|23n|1992-08-30", "RUS|23n|1992-08-30", "TJK|23n|1992-08-30", "TKM|23n|1992-08-30",
+        "UZB|23n|1992-08-30", "BLR|3|1992-08-30",
+        "YEM|n|1990-05-22", "AIA|23n|1981-01-01", "KIR|23|1979-07-12", "DJI|23|1977-06-27",
+    };
+
+    // Column order of RETIRED.
+    private static final CodeScheme[] SCHEMES = { CodeScheme.ISO_ALPHA3, CodeScheme.ISO_ALPHA2, CodeScheme.ISO_NUMERIC };
+
+    private static final Table alpha2 = new Table(26 * 26);
+    private static final Table alpha3 = new Table(26 * 26 * 26);
+    private static final Table numeric = new Table(1000);
+
+    private static final List<List<HistoricCode>> predecessors = new ArrayList<>();
+
+    static
+    {
+        List<HistoricCode> all = new ArrayList<>();
+        CountryInfo[] values = CountryInfo.values();
+
+        for (CountryInfo ci : values) { predecessors.add(new ArrayList<HistoricCode>()); }
+
+        for (String row : RETIRED)
+        {
+            String[] f = row.split("\\|");
+            LocalDate from = date(f[3]);
+            LocalDate to = date(f[4]);
+            CountryInfo country = "-".equals(f[5]) ? null : CountryInfo.valueOf(f[5]);
+            List<CountryInfo> successors = new ArrayList<>();
+
+            if (null != country) { successors.add(country); }
+            else { for (String s : f[6].split(" ")) { successors.add(CountryInfo.valueOf(s)); } }
+
+            for (int i = 0; i < 3; i++)
+            {
+                if ("-".equals(f[i])) { continue; }
+
+                HistoricCode h = new HistoricCode(SCHEMES[i], f[i], f[7], from, to, country, successors);
+                all.add(h);
+
+                for (CountryInfo s : successors) { predecessors.get(s.ordinal()).add(h); }
+            }
+        }
+
+        for (CountryInfo ci : values)
+        {
+            String[] codes = { ci.getISOa3(), ci.getISOa2(), String.format("%03d", ci.getISONum()) };
+
+            for (int i = 0; i < 3; i++)
+            {
+                all.add(new HistoricCode(SCHEMES[i], codes[i], ci.getCountryName(), introduced(ci, i), null,
+                        ci, Collections.singletonList(ci)));
+            }
+        }
+
+        for (List<HistoricCode> list : predecessors) { ((ArrayList<HistoricCode>) list).trimToSize(); }
+
+        for (Table t : new Table[] { alpha3, alpha2, numeric }) { t.build(all); }
+    }
+
+    private CodeHistory()
+    {
+    }
+
+    /**
+     * Get the assignment of an ISO 3166-1 alpha-2, alpha-3 or numeric code
+     * that was valid on the given day.
+     *
+     * @param code
+     *         The code. May be null.
+     *
+     * @return
+     *         The assignment, or null if the code was not valid on that day.
+     *
+     * @throws IllegalArgumentException
+     *         The date is null.
+     */
+    public static HistoricCode tryForISO(CharSequence code, LocalDate date)
+    {
+        if (null == date) { throw new IllegalArgumentException("date is null"); }
+        if (null == code) { return null; }
+
+        return lookup(code, date.toEpochDay());
+    }
+
+    /**
+     * Get the assignment of an ISO 3166-1 numeric code that was valid on the
+     * given day, or null.
+     */
+    public static HistoricCode tryForISO(int code, LocalDate date)
+    {
+        if (null == date) { throw new IllegalArgumentException("date is null"); }
+
+        return numeric.find(code, date.toEpochDay());
+    }
+
+    /**
+     * Get every assignment a code has had, oldest first.
+     *
+     * @return
+     *         An immutable, possibly empty, list.
+     */
+    public static List<HistoricCode> history(CharSequence code)
+    {
+        if (null == code) { return Collections.emptyList(); }
+
+        Table table = table(code);
+        int slot = null == table ? -1 : table.slot(code);
+
+        return slot < 0 ? Collections.<HistoricCode>emptyList() : table.all(slot);
+    }
+
+    /**
+     * Get the retired codes whose records migrate to the given country, e.g.
+     * "ANT", "AN" and "530" for CUW.
+     *
+     * @return
+     *         An immutable, possibly empty, list.
+     */
+    public static List<HistoricCode> predecessors(CountryInfo ci)
+    {
+        return Collections.unmodifiableList(predecessors.get(ci.ordinal()));
+    }
+
+    /**
+     * Look up many codes valid on one day, e.g. to re-resolve an archived
+     * file.
+     *
+     * @param codes
+     *         The codes; null elements are misses.
+     *
+     * @param out
+     *         Receives the assignment of each code, or null.
+     *
+     * @return
+     *         The number of misses.
+     */
+    public static int resolve(CharSequence[] codes, LocalDate date, HistoricCode[] out)
+    {
+        if (null == date) { throw new IllegalArgumentException("date is null"); }
+        if (out.length < codes.length) { throw new IllegalArgumentException("output array is too short"); }
+
+        long day = date.toEpochDay();
+        int misses = 0;
+
+        for (int i = 0; i < codes.length; i++)
+        {
+            out[i] = null == codes[i] ? null : lookup(codes[i], day);
+            if (null == out[i]) { misses++; }
+        }
+
+        return misses;
+    }
+
+    /**
+     * Look up many codes, each valid on its own day.
+     *
+     * @param dates
+     *         The day of each code; null elements are misses.
+     *
+     * @return
+     *         The number of misses.
+     */
+    public static int resolve(CharSequence[] codes, LocalDate[] dates, HistoricCode[] out)
+    {
+        if (dates.length < codes.length || out.length < codes.length)
+        {
+            throw new IllegalArgumentException("array lengths differ");
+        }
+
+        int misses = 0;
+
+        for (int i = 0; i < codes.length; i++)
+        {
+            out[i] = null == codes[i] || null == dates[i] ? null : lookup(codes[i], dates[i].toEpochDay());
+            if (null == out[i]) { misses++; }
+        }
+
+        return misses;
+    }
+
+    private static HistoricCode lookup(CharSequence code, long day)
+    {
+        Table table = table(code);
+
+        return null == table ? null : table.find(table.slot(code), day);
+    }
+
+    private static Table table(CharSequence code)
+    {
+        int length = code.length();
+
+        if (length > 0 && code.charAt(0) >= '0' && code.charAt(0) <= '9') { return numeric; }
+
+        switch (length)
+        {
+            case 2:		return alpha2;
+            case 3:		return alpha3;
+            default:	return null;
+        }
+    }
+
+    private static LocalDate introduced(CountryInfo ci, int scheme)
+    {
+        String flag = scheme == 0 ? "3" : scheme == 1 ? "2" : "n";
+
+        for (String row : INTRODUCED)
+        {
+            String[] f = row.split("\\|");
+            if (f[0].equals(ci.getISOa3()) && f[1].contains(flag)) { return LocalDate.parse(f[2]); }
+        }
+
+        return null;
+    }
+
+    private static LocalDate date(String field)
+    {
+        return "-".equals(field) ? null : LocalDate.parse(field);
+    }
+
+    /**
+     * Assignments of one scheme, grouped by code slot (CSR layout): those of
+     * slot s are {@code codes[first[s]] .. codes[first[s + 1] - 1]}, oldest
+     * first, with their validity as epoch days in parallel arrays.
+     */
+    private static final class Table
+    {
+        final int[] first;
+        HistoricCode[] codes;
+        long[] from;
+        long[] to;
+
+        Table(int slots)
+        {
+            first = new int[slots + 1];
+        }
+
+        int slot(CharSequence code)
+        {
+            if (this == numeric)
+            {
+                int n = CountryInfo.parseNumeric(code, 0, code.length());
+                return n < first.length - 1 ? n : -1;
+            }
+
+            return CountryInfo.alphaIndex(code, 0, code.length());
+        }
+
+        void build(List<HistoricCode> all)
+        {
+            List<HistoricCode> mine = new ArrayList<>();
+            for (HistoricCode h : all) { if (this == table(h.getCode()) && slot(h.getCode()) >= 0) { mine.add(h); } }
+
+            int[] slotOf = new int[mine.size()];
+            for (int i = 0; i < slotOf.length; i++) { first[(slotOf[i] = slot(mine.get(i).getCode())) + 1]++; }
+            for (int s = 1; s < first.length; s++) { first[s] += first[s - 1]; }
+
+            codes = new HistoricCode[mine.size()];
+            from = new long[mine.size()];
+            to = new long[mine.size()];
+
+            int[] next = Arrays.copyOf(first, first.length - 1);
+            for (int i = 0; i < slotOf.length; i++) { codes[next[slotOf[i]]++] = mine.get(i); }
+
+            for (int s = 0; s + 1 < first.length; s++)
+            {
+                Arrays.sort(codes, first[s], first[s + 1], new Comparator<HistoricCode>()
+                {
+                    @Override
+                    public int compare(HistoricCode a, HistoricCode b) { return Long.compare(start(a), start(b)); }
+                });
+
+                for (int i = first[s]; i < first[s + 1]; i++)
+                {
+                    from[i] = start(codes[i]);
+                    to[i] = null == codes[i].getValidTo() ? Long.MAX_VALUE : codes[i].getValidTo().toEpochDay();
+
+                    if (i > first[s] && from[i] < to[i - 1])
+                    {
+                        throw new IllegalStateException("overlapping assignments of " + codes[i].getCode());
+                    }
+                }
+            }
+        }
+
+        HistoricCode find(int slot, long day)
+        {
+            if (slot < 0 || slot >= first.length - 1) { return null; }
+
+            for (int i = first[slot], end = first[slot + 1]; i < end; i++)
+            {
+                if (day >= from[i] && day < to[i]) { return codes[i]; }
+            }
+
+            return null;
+        }
+
+        List<HistoricCode> all(int slot)
+        {
+            return Collections.unmodifiableList(Arrays.asList(codes).subList(first[slot], first[slot + 1]));
+        }
+
+        private static long start(HistoricCode h)
+        {
+            return null == h.getValidFrom() ? Long.MIN_VALUE : h.getValidFrom().toEpochDay();
+        }
+    }
+}
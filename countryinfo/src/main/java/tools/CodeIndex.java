@@ -0,0 +1,312 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable reverse index from short alphanumeric codes to countries, either
+ * {@link CountryInfo} constants or the records of a {@link CountryDataset}.
+ *
+ * <p>
+ * Codes of up to 12 ASCII letters and digits are packed into a {@code long}
+ * (base 37, case-folded) and stored in an open-addressing table, so a lookup
+ * is a key computation plus a probe or two and never allocates.
+ * </p>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+final class CodeIndex<T extends CountryAttributes>
+{
+    static final int MAX_CODE_LENGTH = 12;
+
+    private static final long NO_KEY = 0;
+
+    private final long[] keys;
+    private final List<?>[] all;
+    private final Object[] preferred;
+    private final int mask;
+
+    /**
+     * Build an index from the given codes.
+     *
+     * @param codes
+     *         Map from code to the countries carrying it. Codes that are
+     *         equal ignoring ASCII case are merged.
+     */
+    CodeIndex(Map<String, List<T>> codes)
+    {
+        Map<Long, List<T>> merged = new LinkedHashMap<>();
+
+        for (Map.Entry<String, List<T>> e : codes.entrySet())
+        {
+            long key = key(e.getKey(), 0, e.getKey().length());
+            if (NO_KEY == key) { throw new IllegalArgumentException("unindexable code: " + e.getKey()); }
+
+            List<T> list = merged.get(key);
+            if (null == list) { merged.put(key, list = new ArrayList<>()); }
+
+            for (T item : e.getValue())
+            {
+                if (!list.contains(item)) { list.add(item); }
+            }
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(2, merged.size()) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.all = new List<?>[capacity];
+        this.preferred = new Object[capacity];
+        this.mask = capacity - 1;
+
+        for (Map.Entry<Long, List<T>> e : merged.entrySet())
+        {
+            long key = e.getKey();
+            int slot = hash(key) & mask;
+            while (NO_KEY != keys[slot]) { slot = (slot + 1) & mask; }
+
+            keys[slot] = key;
+            all[slot] = Collections.unmodifiableList(new ArrayList<>(e.getValue()));
+            preferred[slot] = preferred(e.getValue());
+        }
+    }
+
+    /**
+     * Build an index over all the codes of the given scheme. Comma-separated
+     * codes are indexed individually and empty codes are skipped.
+     */
+    static <T extends CountryAttributes> CodeIndex<T> forScheme(CodeScheme scheme, List<T> items)
+    {
+        Map<String, List<T>> codes = new LinkedHashMap<>();
+
+        for (T item : items)
+        {
+            for (String code : scheme.code(item).split(","))
+            {
+                code = code.trim().toUpperCase(Locale.ROOT);
+                if (code.isEmpty()) { continue; }
+
+                List<T> list = codes.get(code);
+                if (null == list) { codes.put(code, list = new ArrayList<>()); }
+                list.add(item);
+            }
+        }
+
+        return new CodeIndex<>(codes);
+    }
+
+    /**
+     * Get the country for the given code, or null if the code is unknown or
+     * shared by several countries none of which is preferred.
+     */
+    @SuppressWarnings("unchecked")
+    T get(CharSequence code, int start, int end)
+    {
+        int slot = find(code, start, end);
+
+        return slot < 0 ? null : (T) preferred[slot];
+    }
+
+    /**
+     * Get all the countries for the given code, or an empty list.
+     */
+    @SuppressWarnings("unchecked")
+    List<T> getAll(CharSequence code, int start, int end)
+    {
+        int slot = find(code, start, end);
+
+        return slot < 0 ? Collections.<T>emptyList() : (List<T>) all[slot];
+    }
+
+    private int find(CharSequence code, int start, int end)
+    {
+        long key = key(code, start, end);
+        if (NO_KEY == key) { return -1; }
+
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask)
+        {
+            long k = keys[slot];
+            if (k == key) { return slot; }
+            if (k == NO_KEY) { return -1; }
+        }
+    }
+
+    /**
+     * Pick the country a shared code should resolve to: the only candidate,
+     * or else the only independent candidate (e.g. DS "F" is France rather
+     * than one of its territories). Returns null if there is no such country.
+     */
+    static <T extends CountryAttributes> T preferred(List<T> candidates)
+    {
+        if (candidates.size() == 1) { return candidates.get(0); }
+
+        T found = null;
+
+        for (T item : candidates)
+        {
+            if ("Yes".equals(item.getIndependent()))
+            {
+                if (null != found) { return null; }
+                found = item;
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Pack a code into a non-zero key, folding ASCII case. Returns
+     * {@code NO_KEY} for empty codes, codes longer than
+     * {@link #MAX_CODE_LENGTH} and codes with characters other than ASCII
+     * letters and digits.
+     */
+    static long key(CharSequence code, int start, int end)
+    {
+        int length = end - start;
+        if (length <= 0 || length > MAX_CODE_LENGTH) { return NO_KEY; }
+
+        long key = 0;
+
+        for (int i = start; i < end; i++)
+        {
+            char c = code.charAt(i);
+            int value;
+
+            if (c >= '0' && c <= '9')
+            {
+                value = c - '0' + 1;
+            }
+            else
+            {
+                int letter = (c | 0x20) - 'a';
+                if (letter < 0 || letter >= 26) { return NO_KEY; }
+                value = letter + 11;
+            }
+
+            key = key * 37 + value;
+        }
+
+        return key;
+    }
+
+    private static int hash(long key)
+    {
+        long h = key * 0x9E3779B97F4A7C15L;
+
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Dense tables for the ISO 3166-1 schemes: alpha codes indexed by their
+     * base-26 value ({@link CountryInfo#alphaIndex(CharSequence, int, int)}),
+     * numeric codes by value. Lookups are an array read and never allocate.
+     */
+    static final class Iso<T extends CountryAttributes>
+    {
+        private final Object[] alpha2 = new Object[26 * 26];
+        private final Object[] alpha3 = new Object[26 * 26 * 26];
+        private final Object[] numeric = new Object[1000];
+
+        /**
+         * Build the tables.
+         *
+         * @throws IllegalArgumentException
+         *         An item has a malformed or duplicate ISO 3166-1 code.
+         */
+        Iso(List<T> items)
+        {
+            for (T item : items)
+            {
+                int a2 = item.getISOa2().length() == 2 ? CountryInfo.alphaIndex(item.getISOa2(), 0, 2) : -1;
+                int a3 = item.getISOa3().length() == 3 ? CountryInfo.alphaIndex(item.getISOa3(), 0, 3) : -1;
+                int num = item.getISONum();
+
+                if (a2 < 0) { throw new IllegalArgumentException(item + ": invalid alpha-2 code \"" + item.getISOa2() + "\""); }
+                if (a3 < 0) { throw new IllegalArgumentException(item + ": invalid alpha-3 code"); }
+                if (num <= 0 || num >= numeric.length) { throw new IllegalArgumentException(item + ": invalid numeric code " + num); }
+
+                if (null != alpha2[a2]) { throw new IllegalArgumentException(item + ": duplicate alpha-2 code " + item.getISOa2()); }
+                if (null != alpha3[a3]) { throw new IllegalArgumentException(item + ": duplicate alpha-3 code"); }
+                if (null != numeric[num]) { throw new IllegalArgumentException(item + ": duplicate numeric code " + num); }
+
+                alpha2[a2] = item;
+                alpha3[a3] = item;
+                numeric[num] = item;
+            }
+        }
+
+        /**
+         * Get the item for the alpha-2 or alpha-3 code in
+         * {@code code[start, end)}, or null. The region must be within the
+         * sequence.
+         */
+        @SuppressWarnings("unchecked")
+        T get(CharSequence code, int start, int end)
+        {
+            int index = CountryInfo.alphaIndex(code, start, end);
+            if (index < 0) { return null; }
+
+            switch (end - start)
+            {
+                case 2:     return (T) alpha2[index];
+                case 3:     return (T) alpha3[index];
+                default:    return null;
+            }
+        }
+
+        /**
+         * Get the item for a numeric code, or null.
+         */
+        @SuppressWarnings("unchecked")
+        T get(int code)
+        {
+            return code < 0 || code >= numeric.length ? null : (T) numeric[code];
+        }
+
+        /**
+         * Get the item for a code in one of the ISO schemes, or null. Numeric
+         * codes are parsed with or without leading zeros.
+         */
+        T get(CodeScheme scheme, CharSequence code)
+        {
+            int length = code.length();
+
+            switch (scheme)
+            {
+                case ISO_ALPHA2:    return length == 2 ? get(code, 0, 2) : null;
+                case ISO_ALPHA3:    return length == 3 ? get(code, 0, 3) : null;
+                case ISO_NUMERIC:   return get(CountryInfo.parseNumeric(code, 0, length));
+                default:            throw new IllegalArgumentException(scheme + " is not an ISO 3166-1 scheme");
+            }
+        }
+
+        /**
+         * Same as {@link #get(CodeScheme, CharSequence)}, as an immutable
+         * list of zero or one item.
+         */
+        List<T> getAll(CodeScheme scheme, CharSequence code)
+        {
+            T item = get(scheme, code);
+
+            return null == item ? Collections.<T>emptyList() : Collections.singletonList(item);
+        }
+    }
+}
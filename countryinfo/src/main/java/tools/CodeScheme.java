@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+/**
+ * Code schemes that a {@link CountryInfo} can be looked up by.
+ *
+ * <pre>
+ * <span style="color: darkgreen;">// Resolve an IOC code.</span>
+ * CountryInfo ci = CountryInfo.{@link CountryInfo#forCode(CodeScheme, CharSequence) forCode}(CodeScheme.IOC, "NED");
+ * </pre>
+ *
+ * <p>
+ * Some schemes assign one code to several countries (for example the DS
+ * code "USA" is shared by the United States and its territories), and some
+ * countries carry several codes in one scheme (for example the FIPS codes
+ * "GZ,WE"). See {@link CountryInfo#allForCode(CodeScheme, CharSequence)}.
+ * </p>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public enum CodeScheme
+{
+    /** ISO 3166-1 alpha-2, see {@link CountryInfo#getISOa2()}. */
+    ISO_ALPHA2 { String code(CountryAttributes c) { return c.getISOa2(); } },
+
+    /** ISO 3166-1 alpha-3, see {@link CountryInfo#getISOa3()}. */
+    ISO_ALPHA3 { String code(CountryAttributes c) { return c.getISOa3(); } },
+
+    /** ISO 3166-1 numeric, three digits, see {@link CountryInfo#getISONum()}. */
+    ISO_NUMERIC { String code(CountryAttributes c) { return numeric(c.getISONum()); } },
+
+    /** ITU letter code, see {@link CountryInfo#getITU()}. */
+    ITU { String code(CountryAttributes c) { return c.getITU(); } },
+
+    /** FIPS 10-4 code, see {@link CountryInfo#getFIPS()}. */
+    FIPS { String code(CountryAttributes c) { return c.getFIPS(); } },
+
+    /** International Olympic Committee code, see {@link CountryInfo#getIOC()}. */
+    IOC { String code(CountryAttributes c) { return c.getIOC(); } },
+
+    /** FIFA code, see {@link CountryInfo#getFIFA()}. */
+    FIFA { String code(CountryAttributes c) { return c.getFIFA(); } },
+
+    /** International vehicle registration code, see {@link CountryInfo#getDS()}. */
+    DS { String code(CountryAttributes c) { return c.getDS(); } },
+
+    /** WMO country code, see {@link CountryInfo#getWMO()}. */
+    WMO { String code(CountryAttributes c) { return c.getWMO(); } },
+
+    /** FAO GAUL code, see {@link CountryInfo#getGAUL()}. */
+    GAUL { String code(CountryAttributes c) { return c.getGAUL(); } },
+
+    /** MARC code, see {@link CountryInfo#getMARC()}. */
+    MARC { String code(CountryAttributes c) { return c.getMARC(); } };
+
+    /**
+     * Get the code of the given country in this scheme.
+     *
+     * @param ci
+     *         A country.
+     *
+     * @return
+     *         The raw code, which may be empty when the country has no code
+     *         in this scheme, or a comma-separated list when it has several.
+     */
+    public String codeOf(CountryInfo ci)
+    {
+        return code(ci);
+    }
+
+    abstract String code(CountryAttributes c);
+
+    /**
+     * Whether this is an ISO 3166-1 scheme, looked up in a
+     * {@link CodeIndex.Iso} rather than a {@link CodeIndex}.
+     */
+    boolean isISO()
+    {
+        return this == ISO_ALPHA2 || this == ISO_ALPHA3 || this == ISO_NUMERIC;
+    }
+
+    /**
+     * Format an ISO 3166-1 numeric code as its three digits, "004" for 4.
+     */
+    static String numeric(int code)
+    {
+        return code < 10 ? "00" + code : code < 100 ? "0" + code : String.valueOf(code);
+    }
+}
@@ -0,0 +1,628 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Streaming translation of country code columns in delimited text files,
+ * from one {@link CodeScheme} to another.
+ *
+ * <pre>
+ * <span style="color: darkgreen;">// Rewrite column 3 of a CSV file from FIFA codes to ISO alpha-2.</span>
+ * CodeTranslator t = new CodeTranslator(CodeScheme.FIFA, CodeScheme.ISO_ALPHA2, ',', true, 3);
+ * CodeTranslator.Summary s = t.translate(in, out, CodeTranslator.Unknown.KEEP, null, 4);
+ * </pre>
+ *
+ * <p>
+ * The input is memory-mapped in chunks that end on record boundaries. The
+ * chunks are translated in parallel and written out in order. Only the
+ * selected columns are rewritten, through a per-country table of target
+ * codes built once; every other byte is copied through unchanged. At most
+ * {@code 2 * threads} chunks are in flight, and their output buffers are
+ * recycled: they start small and grow to what a chunk needs, so the heap
+ * holds a bounded set of buffers however large the input is.
+ * </p>
+ *
+ * <p>
+ * Records end with "\n" (a preceding "\r" is kept). Fields are split on the
+ * delimiter; a code wrapped in double quotes is translated inside its quotes,
+ * but quoted fields containing delimiters or line breaks are not supported.
+ * Empty fields are left alone. A country without a code in the target scheme
+ * counts as unknown. Where a country has several target codes, the first one
+ * is written. Numeric codes are written with three digits.
+ * </p>
+ *
+ * <p>
+ * The output and the side file are written to temporary files next to them
+ * and moved into place only when the whole input has been translated, so a
+ * failed translation leaves any existing output untouched.
+ * </p>
+ *
+ * <p>
+ * Instances are immutable and thread-safe. Command line usage:
+ * </p>
+ *
+ * <pre>
+ * java tools.CodeTranslator [-d DELIM] [-H] [-u keep|blank|fail|side=FILE] [-t THREADS]
+ *                           FROM TO COLUMNS INPUT OUTPUT
+ * </pre>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public final class CodeTranslator
+{
+    /**
+     * What to do with a code that does not translate.
+     */
+    public enum Unknown
+    {
+        /** Copy the field unchanged. */
+        KEEP,
+
+        /** Write an empty field. */
+        BLANK,
+
+        /** Stop with an {@link IllegalArgumentException}. */
+        FAIL,
+
+        /**
+         * Copy the field unchanged and write its byte offset, column and value
+         * to a side file.
+         */
+        SIDE_FILE
+    }
+
+    /**
+     * Counts from one translation.
+     */
+    public static final class Summary
+    {
+        private final long records;
+        private final long translated;
+        private final long unknown;
+
+        Summary(long records, long translated, long unknown)
+        {
+            this.records = records;
+            this.translated = translated;
+            this.unknown = unknown;
+        }
+
+        /** Number of records read, including the header. */
+        public long getRecords()    { return records; }
+
+        /** Number of fields rewritten. */
+        public long getTranslated() { return translated; }
+
+        /** Number of non-empty fields that did not translate. */
+        public long getUnknown()    { return unknown; }
+
+        @Override
+        public String toString()
+        {
+            return records + " records, " + translated + " fields translated, " + unknown + " unknown";
+        }
+    }
+
+    /** Target chunk size; chunks are extended to the next record boundary. */
+    static final int CHUNK_SIZE = 1 << 25;
+
+    /** Initial size of an output buffer, grown as needed. */
+    private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+
+    private final CodeScheme from;
+    private final CodeScheme to;
+    private final byte delimiter;
+    private final boolean header;
+    private final boolean[] columns;
+    private final byte[][] targets;
+
+    // Package-private so that tests can cover many chunks with small files.
+    int chunkSize = CHUNK_SIZE;
+
+    /**
+     * Create a translator.
+     *
+     * @param from
+     *         Scheme of the codes in the input.
+     *
+     * @param to
+     *         Scheme to write.
+     *
+     * @param delimiter
+     *         Field delimiter, an ASCII character such as ',' or '\t'.
+     *
+     * @param header
+     *         Whether the first record is a header to copy unchanged.
+     *
+     * @param columns
+     *         Zero-based indexes of the columns to translate.
+     */
+    public CodeTranslator(CodeScheme from, CodeScheme to, char delimiter, boolean header, int... columns)
+    {
+        if (delimiter == 0 || delimiter > 0x7F || delimiter == '\n' || delimiter == '"')
+        {
+            throw new IllegalArgumentException("invalid delimiter");
+        }
+
+        if (columns.length == 0) { throw new IllegalArgumentException("no column to translate"); }
+
+        int max = 0;
+        for (int column : columns)
+        {
+            if (column < 0) { throw new IllegalArgumentException("negative column index"); }
+            max = Math.max(max, column);
+        }
+
+        this.from = from;
+        this.to = to;
+        this.delimiter = (byte) delimiter;
+        this.header = header;
+        this.columns = new boolean[max + 1];
+        for (int column : columns) { this.columns[column] = true; }
+
+        CountryInfo[] values = CountryInfo.values();
+        this.targets = new byte[values.length][];
+
+        for (CountryInfo ci : values)
+        {
+            String code = to.codeOf(ci);
+            int comma = code.indexOf(',');
+            if (comma >= 0) { code = code.substring(0, comma); }
+
+            if (!code.isEmpty()) { targets[ci.ordinal()] = code.getBytes(StandardCharsets.US_ASCII); }
+        }
+    }
+
+    /**
+     * Translate a file.
+     *
+     * @param input
+     *         File to read.
+     *
+     * @param output
+     *         File to write, replaced if it exists once the translation has
+     *         succeeded.
+     *
+     * @param unknown
+     *         What to do with codes that do not translate.
+     *
+     * @param sideFile
+     *         File that receives the unknown codes with
+     *         {@link Unknown#SIDE_FILE}; ignored otherwise.
+     *
+     * @param threads
+     *         Number of chunks to translate in parallel.
+     *
+     * @return
+     *         The counts.
+     *
+     * @throws IOException
+     *         Reading or writing failed.
+     *
+     * @throws IllegalArgumentException
+     *         A code did not translate with {@link Unknown#FAIL}.
+     */
+    public Summary translate(Path input, Path output, Unknown unknown, Path sideFile, int threads) throws IOException
+    {
+        if (unknown == Unknown.SIDE_FILE && null == sideFile) { throw new IllegalArgumentException("no side file"); }
+        if (threads < 1) { throw new IllegalArgumentException("threads must be positive"); }
+
+        Path outputTemp = temporarySibling(output);
+        Path sideTemp = unknown == Unknown.SIDE_FILE ? temporarySibling(sideFile) : null;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try
+        {
+            Summary summary;
+
+            try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+                 OutputStream out = Files.newOutputStream(outputTemp);
+                 OutputStream side = null == sideTemp ? null : Files.newOutputStream(sideTemp))
+            {
+                summary = translate(in, out, side, unknown, threads, executor);
+            }
+
+            if (null != sideTemp) { moveIntoPlace(sideTemp, sideFile); }
+            moveIntoPlace(outputTemp, output);
+
+            return summary;
+        }
+        finally
+        {
+            executor.shutdownNow();
+            Files.deleteIfExists(outputTemp);
+            if (null != sideTemp) { Files.deleteIfExists(sideTemp); }
+        }
+    }
+
+    private Summary translate(FileChannel in, OutputStream out, OutputStream side, Unknown unknown, int threads,
+            ExecutorService executor) throws IOException
+    {
+        long size = in.size();
+        long records = 0, translated = 0, unknowns = 0;
+        Deque<Future<Chunk>> pending = new ArrayDeque<>();
+        // Buffers of written chunks, reused by later ones. Only this thread
+        // takes and returns them, and at most 2 * threads pairs exist.
+        Deque<Bytes> free = new ArrayDeque<>();
+        long start = 0;
+
+        while (start < size || !pending.isEmpty())
+        {
+            // Keep a bounded number of chunks in flight, in file order.
+            while (start < size && pending.size() < threads * 2)
+            {
+                long end = recordEnd(in, Math.min(size, start + chunkSize), size);
+                pending.add(executor.submit(new Chunk(in.map(FileChannel.MapMode.READ_ONLY, start, end - start),
+                                                      start, header && start == 0, unknown,
+                                                      Bytes.take(free), Bytes.take(free))));
+                start = end;
+            }
+
+            Chunk chunk = await(pending.poll());
+            out.write(chunk.out.bytes, 0, chunk.out.size);
+            if (null != side) { side.write(chunk.side.bytes, 0, chunk.side.size); }
+
+            records += chunk.records;
+            translated += chunk.translated;
+            unknowns += chunk.unknown;
+
+            free.push(chunk.out);
+            free.push(chunk.side);
+        }
+
+        return new Summary(records, translated, unknowns);
+    }
+
+    private static Path temporarySibling(Path file) throws IOException
+    {
+        Path absolute = file.toAbsolutePath();
+
+        return Files.createTempFile(absolute.getParent(), "." + absolute.getFileName(), ".tmp");
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException
+    {
+        try
+        {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IllegalArgumentException) { throw (IllegalArgumentException) cause; }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Find the position just after the first "\n" at or after {@code pos}, or
+     * the end of the file.
+     */
+    private static long recordEnd(FileChannel in, long pos, long size) throws IOException
+    {
+        if (pos >= size) { return size; }
+
+        ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+
+        while (pos < size)
+        {
+            buf.clear();
+            int n = in.read(buf, pos);
+            if (n <= 0) { break; }
+
+            for (int i = 0; i < n; i++)
+            {
+                if (buf.get(i) == '\n') { return pos + i + 1; }
+            }
+
+            pos += n;
+        }
+
+        return size;
+    }
+
+    /**
+     * One chunk of whole records and its translation.
+     */
+    private final class Chunk implements Callable<Chunk>
+    {
+        private final MappedByteBuffer in;
+        private final long offset;
+        private final boolean skipFirst;
+        private final Unknown policy;
+        private final Bytes out;
+        private final Bytes side;
+        private final AsciiSequence seq = new AsciiSequence();
+
+        long records;
+        long translated;
+        long unknown;
+
+        Chunk(MappedByteBuffer in, long offset, boolean skipFirst, Unknown policy, Bytes out, Bytes side)
+        {
+            this.in = in;
+            this.offset = offset;
+            this.skipFirst = skipFirst;
+            this.policy = policy;
+            this.out = out;
+            this.side = side;
+        }
+
+        @Override
+        public Chunk call()
+        {
+            int limit = in.limit();
+            int pos = 0;
+            int copied = 0;
+
+            if (skipFirst)
+            {
+                while (pos < limit && in.get(pos++) != '\n') { }
+                records++;
+            }
+
+            while (pos < limit)
+            {
+                int column = 0;
+
+                // One record: walk its fields up to and including the "\n".
+                while (true)
+                {
+                    int start = pos;
+                    while (pos < limit && in.get(pos) != delimiter && in.get(pos) != '\n') { pos++; }
+
+                    if (column < columns.length && columns[column])
+                    {
+                        copied = field(start, pos, column, copied);
+                    }
+
+                    column++;
+
+                    if (pos >= limit) { break; }
+                    if (in.get(pos++) == '\n') { break; }
+                }
+
+                records++;
+            }
+
+            out.write(in, copied, limit);
+
+            return this;
+        }
+
+        /**
+         * Translate the field {@code [start, end)}; returns the new start of
+         * the pending run of bytes to copy through.
+         */
+        private int field(int start, int end, int column, int copied)
+        {
+            if (end > start && in.get(end - 1) == '\r') { end--; }
+            if (end - start >= 2 && in.get(start) == '"' && in.get(end - 1) == '"') { start++; end--; }
+            if (end == start) { return copied; }
+
+            CountryInfo ci = CountryInfo.lookupCode(from, seq.wrap(in, start, end));
+            byte[] target = null == ci ? null : targets[ci.ordinal()];
+
+            if (null != target)
+            {
+                out.write(in, copied, start);
+                out.write(target);
+                translated++;
+
+                return end;
+            }
+
+            unknown++;
+
+            switch (policy)
+            {
+                case BLANK:
+                    out.write(in, copied, start);
+                    return end;
+
+                case FAIL:
+                    throw new IllegalArgumentException("untranslatable " + from + " code \"" + seq
+                            + "\" in column " + column + " at byte offset " + (offset + start));
+
+                case SIDE_FILE:
+                    side.write((offset + start + "\t" + column + "\t" + seq + "\n").getBytes(StandardCharsets.UTF_8));
+                    return copied;
+
+                default:
+                    return copied;
+            }
+        }
+    }
+
+    /**
+     * Growable, reusable byte array.
+     */
+    private static final class Bytes
+    {
+        byte[] bytes = new byte[INITIAL_BUFFER_SIZE];
+        int size;
+
+        /** Reuse an emptied buffer from {@code free}, or allocate one. */
+        static Bytes take(Deque<Bytes> free)
+        {
+            Bytes b = free.poll();
+            if (null == b) { return new Bytes(); }
+
+            b.size = 0;
+            return b;
+        }
+
+        void write(byte[] src)
+        {
+            ensure(src.length);
+            System.arraycopy(src, 0, bytes, size, src.length);
+            size += src.length;
+        }
+
+        void write(ByteBuffer src, int from, int to)
+        {
+            int n = to - from;
+            if (n <= 0) { return; }
+
+            ensure(n);
+            ByteBuffer view = src.duplicate();
+            view.position(from);
+            view.get(bytes, size, n);
+            size += n;
+        }
+
+        private void ensure(int n)
+        {
+            if (size + n > bytes.length)
+            {
+                byte[] grown = new byte[Math.max(size + n, bytes.length * 2)];
+                System.arraycopy(bytes, 0, grown, 0, size);
+                bytes = grown;
+            }
+        }
+    }
+
+    /**
+     * Print the usage, after an error message if there is one, and exit.
+     */
+    private static void usage(String error)
+    {
+        if (null != error) { System.err.println(error); }
+
+        System.err.println("usage: java tools.CodeTranslator [-d DELIM] [-H] [-u keep|blank|fail|side=FILE] [-t THREADS]");
+        System.err.println("                                 FROM TO COLUMNS INPUT OUTPUT");
+        System.err.println("  FROM, TO: one of " + Arrays.toString(CodeScheme.values()));
+        System.err.println("  COLUMNS:  zero-based, comma-separated");
+        System.exit(2);
+    }
+
+    /**
+     * Command line entry point; see the class documentation for usage.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        char delimiter = ',';
+        boolean header = false;
+        Unknown unknown = Unknown.KEEP;
+        Path sideFile = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> rest = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++)
+        {
+            String arg = args[i];
+
+            if ("-d".equals(arg) && i + 1 < args.length)
+            {
+                String d = args[++i];
+
+                if ("tab".equalsIgnoreCase(d) || "\\t".equals(d)) { delimiter = '\t'; }
+                else if (d.length() == 1) { delimiter = d.charAt(0); }
+                else { usage("delimiter must be one character: \"" + d + "\""); }
+            }
+            else if ("-H".equals(arg))
+            {
+                header = true;
+            }
+            else if ("-u".equals(arg) && i + 1 < args.length)
+            {
+                String u = args[++i];
+
+                if (u.startsWith("side="))
+                {
+                    unknown = Unknown.SIDE_FILE;
+                    sideFile = Paths.get(u.substring(5));
+                }
+                else
+                {
+                    unknown = Unknown.valueOf(u.toUpperCase(Locale.ROOT));
+                }
+            }
+            else if ("-t".equals(arg) && i + 1 < args.length)
+            {
+                threads = Integer.parseInt(args[++i]);
+            }
+            else
+            {
+                rest.add(arg);
+            }
+        }
+
+        if (rest.size() != 5) { usage(null); }
+
+        String[] cols = rest.get(2).split(",");
+        int[] columns = new int[cols.length];
+        for (int i = 0; i < cols.length; i++) { columns[i] = Integer.parseInt(cols[i].trim()); }
+
+        CodeTranslator translator = new CodeTranslator(
+                CodeScheme.valueOf(rest.get(0).toUpperCase(Locale.ROOT)),
+                CodeScheme.valueOf(rest.get(1).toUpperCase(Locale.ROOT)),
+                delimiter, header, columns);
+
+        try
+        {
+            Summary summary = translator.translate(Paths.get(rest.get(3)), Paths.get(rest.get(4)), unknown, sideFile, threads);
+            System.err.println(summary);
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+/**
+ * The attributes shared by the compiled-in {@link CountryInfo} constants and
+ * the {@link CountryRecord}s of a loaded {@link CountryDataset}, so that the
+ * lookup indexes can be built over either.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+interface CountryAttributes
+{
+    String getISOa3();
+    String getISOa2();
+    String getCCTLD();
+    int    getISONum();
+    String getITU();
+    String getFIPS();
+    String getIOC();
+    String getFIFA();
+    String getDS();
+    String getWMO();
+    String getGAUL();
+    String getMARC();
+    String getDial();
+    String getCountryName();
+    String getIndependent();
+}
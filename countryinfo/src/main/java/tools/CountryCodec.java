@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compact, stable binary encoding of countries for wire formats and
+ * columnar storage.
+ *
+ * <p>
+ * Two encodings are provided, neither of which depends on enum ordinals:
+ * </p>
+ * <ul>
+ *   <li>a 1-byte id from an explicit, append-only id table
+ *       ({@link #toByteId(CountryInfo)});</li>
+ *   <li>a 10-bit id equal to the ISO 3166-1 numeric code
+ *       ({@link #toNumericId(CountryInfo)}), bit-packed for arrays by
+ *       {@link #pack(CountryInfo[], int, int, ByteBuffer)}.</li>
+ * </ul>
+ *
+ * <p>
+ * Id 0 encodes null in both. Encoding and decoding read and write the
+ * caller's buffers directly. A stream should start with a header
+ * ({@link #writeHeader(ByteBuffer)}) naming the dataset version its ids were
+ * assigned by, so that a reader can reject ids it cannot know about
+ * ({@link #readHeader(ByteBuffer)}).
+ * </p>
+ *
+ * <pre>
+ * ByteBuffer buf = ByteBuffer.allocate(64);
+ * CountryCodec.writeHeader(buf);
+ * CountryCodec.put(buf, CountryInfo.JPN);
+ * buf.flip();
+ * CountryCodec.readHeader(buf);
+ * CountryInfo ci = CountryCodec.get(buf);
+ * </pre>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public final class CountryCodec
+{
+    /**
+     * Dataset version the id table below was last extended for. Ids written
+     * under any version up to this one decode with this table.
+     */
+    public static final int ID_TABLE_VERSION = 20130220;
+
+    /** Size in bytes of the stream header. */
+    public static final int HEADER_SIZE = 6;
+
+    private static final short MAGIC = 0x4349;
+
+    // Byte id n is the n-th code below, counting from 1. Never reorder or
+    // remove entries; append new countries and bump ID_TABLE_VERSION.
+    private static final String ID_TABLE = ""
+        + "ABW AFG AGO AIA ALA ALB AND ARE ARG ARM ASM ATA ATF ATG AUS AUT AZE BDI "
+        + "BEL BEN BES BFA BGD BGR BHR BHS BIH BLM BLR BLZ BMU BOL BRA BRB BRN BTN "
+        + "BVT BWA CAF CAN CCK CHE CHL CHN CIV CMR COD COG COK COL COM CPV CRI CUB "
+        + "CUW CXR CYM CYP CZE DEU DJI DMA DNK DOM DZA ECU EGY ERI ESH ESP EST ETH "
+        + "FIN FJI FLK FRA FRO FSM GAB GBR GEO GGY GHA GIB GIN GLP GMB GNB GNQ GRC "
+        + "GRD GRL GTM GUF GUM GUY HKG HMD HND HRV HTI HUN IDN IMN IND IOT IRL IRN "
+        + "IRQ ISL ISR ITA JAM JEY JOR JPN KAZ KEN KGZ KHM KIR KNA KOR KWT LAO LBN "
+        + "LBR LBY LCA LIE LKA LSO LTU LUX LVA MAC MAF MAR MCO MDA MDG MDV MEX MHL "
+        + "MKD MLI MLT MMR MNE MNG MNP MOZ MRT MSR MTQ MUS MWI MYS MYT NAM NCL NER "
+        + "NFK NGA NIC NIU NLD NOR NPL NRU NZL OMN PAK PAN PCN PER PHL PLW PNG POL "
+        + "PRI PRK PRT PRY PSE PYF QAT REU ROU RUS RWA SAU SDN SEN SGP SGS SHN SJM "
+        + "SLB SLE SLV SMR SOM SPM SRB SSD STP SUR SVK SVN SWE SWZ SXM SYC SYR TCA "
+        + "TCD TGO THA TJK TKL TKM TLS TON TTO TUN TUR TUV TWN TZA UGA UKR UMI URY "
+        + "USA UZB VAT VCT VEN VGB VIR VNM VUT WLF WSM YEM ZAF ZMB ZWE ";
+
+    private static final CountryInfo[] byByteId = new CountryInfo[256];
+    private static final byte[] byteIdOf = new byte[CountryInfo.values().length];
+
+    static
+    {
+        String[] codes = ID_TABLE.trim().split(" +");
+        if (codes.length > 255) { throw new IllegalStateException("id table overflow"); }
+
+        for (int i = 0; i < codes.length; i++)
+        {
+            CountryInfo ci = CountryInfo.valueOf(codes[i]);
+            byByteId[i + 1] = ci;
+            byteIdOf[ci.ordinal()] = (byte) (i + 1);
+        }
+
+        for (CountryInfo ci : CountryInfo.values())
+        {
+            if (0 == byteIdOf[ci.ordinal()]) { throw new IllegalStateException(ci + " has no id in CountryCodec"); }
+        }
+    }
+
+    private CountryCodec()
+    {
+    }
+
+    /**
+     * Get the 1-byte id of a country, 0 for null.
+     */
+    public static byte toByteId(CountryInfo ci)
+    {
+        return null == ci ? 0 : byteIdOf[ci.ordinal()];
+    }
+
+    /**
+     * Get the country with the given 1-byte id, null for 0.
+     *
+     * @throws IllegalArgumentException
+     *         The id is not assigned.
+     */
+    public static CountryInfo fromByteId(byte id)
+    {
+        CountryInfo ci = byByteId[id & 0xFF];
+        if (null == ci && 0 != id) { throw new IllegalArgumentException("unknown country id " + (id & 0xFF)); }
+
+        return ci;
+    }
+
+    /**
+     * Get the 10-bit id of a country, its ISO 3166-1 numeric code; 0 for null.
+     */
+    public static int toNumericId(CountryInfo ci)
+    {
+        return null == ci ? 0 : ci.getISONum();
+    }
+
+    /**
+     * Get the country with the given 10-bit id, null for 0.
+     *
+     * @throws IllegalArgumentException
+     *         The id is not assigned.
+     */
+    public static CountryInfo fromNumericId(int id)
+    {
+        if (0 == id) { return null; }
+
+        CountryInfo ci = CountryInfo.lookupISO(id);
+        if (null == ci) { throw new IllegalArgumentException("unknown country id " + id); }
+
+        return ci;
+    }
+
+    /**
+     * Write the stream header: a 2-byte magic number and
+     * {@link #ID_TABLE_VERSION}.
+     */
+    public static void writeHeader(ByteBuffer dst)
+    {
+        dst.putShort(MAGIC).putInt(ID_TABLE_VERSION);
+    }
+
+    /**
+     * Read and check a stream header.
+     *
+     * @return
+     *         The dataset version of the stream.
+     *
+     * @throws IllegalArgumentException
+     *         The data is not a header, or was written under a dataset
+     *         version newer than {@link #ID_TABLE_VERSION}.
+     */
+    public static int readHeader(ByteBuffer src)
+    {
+        if (src.getShort() != MAGIC) { throw new IllegalArgumentException("not a CountryCodec stream"); }
+
+        int version = src.getInt();
+        checkVersion(version);
+
+        return version;
+    }
+
+    /**
+     * Check that ids written under the given dataset version can be decoded.
+     *
+     * @throws IllegalArgumentException
+     *         The version is newer than {@link #ID_TABLE_VERSION}.
+     */
+    public static void checkVersion(int version)
+    {
+        if (version > ID_TABLE_VERSION)
+        {
+            throw new IllegalArgumentException("country ids from unknown dataset version " + version);
+        }
+    }
+
+    /**
+     * Write the 1-byte id of a country at the buffer's position.
+     */
+    public static void put(ByteBuffer dst, CountryInfo ci)
+    {
+        dst.put(toByteId(ci));
+    }
+
+    /**
+     * Read a 1-byte id at the buffer's position.
+     */
+    public static CountryInfo get(ByteBuffer src)
+    {
+        return fromByteId(src.get());
+    }
+
+    /**
+     * Write the 1-byte id of a country at {@code dst[offset]}.
+     */
+    public static void put(byte[] dst, int offset, CountryInfo ci)
+    {
+        dst[offset] = toByteId(ci);
+    }
+
+    /**
+     * Read the 1-byte id at {@code src[offset]}.
+     */
+    public static CountryInfo get(byte[] src, int offset)
+    {
+        return fromByteId(src[offset]);
+    }
+
+    /**
+     * Write the 1-byte ids of {@code src[offset, offset + length)} at the
+     * buffer's position.
+     */
+    public static void encode(CountryInfo[] src, int offset, int length, ByteBuffer dst)
+    {
+        for (int i = offset; i < offset + length; i++) { dst.put(toByteId(src[i])); }
+    }
+
+    /**
+     * Read {@code length} 1-byte ids at the buffer's position into
+     * {@code dst[offset, offset + length)}.
+     */
+    public static void decode(ByteBuffer src, CountryInfo[] dst, int offset, int length)
+    {
+        for (int i = offset; i < offset + length; i++) { dst[i] = fromByteId(src.get()); }
+    }
+
+    /**
+     * Get the number of bytes {@link #pack(CountryInfo[], int, int, ByteBuffer)}
+     * writes for {@code count} countries.
+     */
+    public static int packedSize(int count)
+    {
+        return (int) (((long) count * 10 + 7) >>> 3);
+    }
+
+    /**
+     * Write the 10-bit ids of {@code src[offset, offset + length)} at the
+     * buffer's position, packed big-endian, most significant bit first; the
+     * last byte is zero-padded. Writes {@link #packedSize(int)} bytes.
+     */
+    public static void pack(CountryInfo[] src, int offset, int length, ByteBuffer dst)
+    {
+        long acc = 0;
+        int bits = 0;
+
+        for (int i = offset; i < offset + length; i++)
+        {
+            acc = (acc << 10) | toNumericId(src[i]);
+            bits += 10;
+
+            while (bits >= 8)
+            {
+                bits -= 8;
+                dst.put((byte) (acc >>> bits));
+            }
+        }
+
+        if (bits > 0) { dst.put((byte) (acc << (8 - bits))); }
+    }
+
+    /**
+     * Read {@code length} packed 10-bit ids at the buffer's position into
+     * {@code dst[offset, offset + length)}. Reads {@link #packedSize(int)}
+     * bytes.
+     */
+    public static void unpack(ByteBuffer src, CountryInfo[] dst, int offset, int length)
+    {
+        long acc = 0;
+        int bits = 0;
+
+        for (int i = offset; i < offset + length; i++)
+        {
+            while (bits < 10)
+            {
+                acc = (acc << 8) | (src.get() & 0xFF);
+                bits += 8;
+            }
+
+            bits -= 10;
+            dst[i] = fromNumericId((int) (acc >>> bits) & 0x3FF);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent per-country counters, striped to avoid contention on hot
+ * countries.
+ *
+ * <pre>
+ * CountryCounters requests = new CountryCounters();
+ *
+ * <span style="color: darkgreen;">// Per request, from any thread.</span>
+ * requests.{@link #increment(CountryInfo) increment}(country);
+ *
+ * <span style="color: darkgreen;">// Periodic export.</span>
+ * CountryLongMap counts = requests.{@link #snapshotAndReset() snapshotAndReset}();
+ * </pre>
+ *
+ * <p>
+ * Each stripe holds one cell per country; a thread always updates the cells of
+ * the stripe its id hashes to, so threads rarely share a cell, and stripes are
+ * padded apart so they do not share cache lines. Reads sum a country's cells
+ * over all stripes.
+ * </p>
+ *
+ * <p>
+ * {@link #snapshotAndReset()} swaps the cells to zero one at a time. Each
+ * swap is atomic, so every update is counted in exactly one snapshot, but the
+ * snapshot as a whole is not: updates made while it runs land in this
+ * snapshot or the next depending on whether their cell was already swapped,
+ * so it is not a point-in-time cut across countries or stripes.
+ * </p>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public final class CountryCounters
+{
+    private static final int PADDING = 16;
+
+    private final int countries;
+    private final int stride;
+    private final int mask;
+    private final AtomicLongArray cells;
+
+    /**
+     * Create counters with one stripe per available processor, up to 64.
+     */
+    public CountryCounters()
+    {
+        this(Math.min(64, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Create counters.
+     *
+     * @param stripes
+     *         Number of stripes, rounded up to a power of two.
+     */
+    public CountryCounters(int stripes)
+    {
+        if (stripes < 1) { throw new IllegalArgumentException("stripes must be positive"); }
+
+        int n = Integer.highestOneBit(stripes);
+        if (n < stripes) { n <<= 1; }
+
+        this.countries = CountryInfo.values().length;
+        this.stride = countries + PADDING;
+        this.mask = n - 1;
+        this.cells = new AtomicLongArray(n * stride + PADDING);
+    }
+
+    public void increment(CountryInfo ci)
+    {
+        cells.getAndIncrement(cell(ci.ordinal()));
+    }
+
+    public void add(CountryInfo ci, long delta)
+    {
+        cells.getAndAdd(cell(ci.ordinal()), delta);
+    }
+
+    /**
+     * Add to the counter of the country with the given ordinal, as written by
+     * the bulk lookups. Out-of-range ordinals (including
+     * {@link CountryInfo#NO_ORDINAL}) are ignored.
+     */
+    public void addByOrdinal(int ordinal, long delta)
+    {
+        if (ordinal < 0 || ordinal >= countries) { return; }
+
+        cells.getAndAdd(cell(ordinal), delta);
+    }
+
+    /**
+     * Get the current count of a country.
+     */
+    public long get(CountryInfo ci)
+    {
+        long sum = 0;
+
+        for (int base = PADDING + ci.ordinal(); base < cells.length(); base += stride)
+        {
+            sum += cells.get(base);
+        }
+
+        return sum;
+    }
+
+    /**
+     * Get the current counts of all countries.
+     */
+    public CountryLongMap snapshot()
+    {
+        long[] sums = new long[countries];
+
+        for (int stripe = 0; stripe <= mask; stripe++)
+        {
+            int base = PADDING + stripe * stride;
+            for (int o = 0; o < countries; o++) { sums[o] += cells.get(base + o); }
+        }
+
+        return new CountryLongMap(sums);
+    }
+
+    /**
+     * Get the current counts of all countries and reset them to zero. Each
+     * cell is read and reset atomically, but not all cells at once; see the
+     * class documentation.
+     */
+    public CountryLongMap snapshotAndReset()
+    {
+        long[] sums = new long[countries];
+
+        for (int stripe = 0; stripe <= mask; stripe++)
+        {
+            int base = PADDING + stripe * stride;
+            for (int o = 0; o < countries; o++) { sums[o] += cells.getAndSet(base + o, 0); }
+        }
+
+        return new CountryLongMap(sums);
+    }
+
+    private int cell(int ordinal)
+    {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id * 0x9E3779B97F4A7C15L >>> 32);
+
+        return PADDING + (h & mask) * stride + ordinal;
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable, versioned set of {@link CountryRecord}s with all of its lookup
+ * indexes, as loaded from a data file.
+ *
+ * <p>
+ * A dataset offers the same lookups as the static methods of
+ * {@link CountryInfo}, with the same semantics, but over its own records.
+ * All indexes are built by the factory methods before the dataset is
+ * returned, so a dataset is complete and safe to share as soon as it is
+ * visible to other threads. See {@link CountryRegistry} for publishing
+ * reloaded datasets.
+ * </p>
+ *
+ * <p>
+ * Two file formats are supported:
+ * </p>
+ * <ul>
+ *   <li>CSV ({@link #readCsv(Reader)}): a "#version=N" line, a header line,
+ *       then one line per country with the columns {@link #CSV_HEADER};
+ *       fields containing commas or quotes are double-quoted, with quotes
+ *       doubled;</li>
+ *   <li>binary snapshot ({@link #readSnapshot(InputStream)}): a precompiled
+ *       form that loads without text parsing.</li>
+ * </ul>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public final class CountryDataset
+{
+    /** Columns of the CSV format. */
+    public static final String CSV_HEADER =
+            "alpha3,alpha2,cctld,isonum,itu,fips,ioc,fifa,ds,wmo,gaul,marc,dial,name,independent";
+
+    private static final int COLUMNS = 15;
+
+    /** First four bytes of a binary snapshot ("CIDS"). */
+    static final int SNAPSHOT_MAGIC = 0x43494453;
+
+    private static final int SNAPSHOT_FORMAT = 1;
+
+    private final int version;
+    private final List<CountryRecord> records;
+    private final CodeIndex.Iso<CountryRecord> isoIndex;
+    private final List<CodeIndex<CountryRecord>> codeIndexes = new ArrayList<>();
+    private final DialIndex<CountryRecord> dialIndex;
+    private final CcTldIndex<CountryRecord> ccTLDIndex;
+    private final NameIndex<CountryRecord> nameIndex;
+
+    /**
+     * Build a dataset and all of its indexes.
+     *
+     * @param version
+     *         Dataset version, e.g. a date as in {@link CountryInfo#VERSION}.
+     *
+     * @param records
+     *         The countries.
+     *
+     * @throws IllegalArgumentException
+     *         A record has a malformed or duplicate ISO 3166-1 code.
+     */
+    public CountryDataset(int version, List<CountryRecord> records)
+    {
+        this.version = version;
+        this.records = Collections.unmodifiableList(new ArrayList<>(records));
+        this.isoIndex = new CodeIndex.Iso<>(this.records);
+
+        for (CodeScheme scheme : CodeScheme.values())
+        {
+            codeIndexes.add(scheme.isISO() ? null : CodeIndex.forScheme(scheme, this.records));
+        }
+
+        this.dialIndex = new DialIndex<>(this.records);
+        this.ccTLDIndex = new CcTldIndex<>(this.records);
+        this.nameIndex = new NameIndex<>(this.records);
+    }
+
+    /**
+     * Get a dataset of the compiled-in {@link CountryInfo} constants, at
+     * version {@link CountryInfo#VERSION}.
+     */
+    public static CountryDataset fromCountryInfo()
+    {
+        List<CountryRecord> records = new ArrayList<>();
+        for (CountryInfo ci : CountryInfo.values()) { records.add(CountryRecord.of(ci)); }
+
+        return new CountryDataset(CountryInfo.VERSION, records);
+    }
+
+    public int getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Get all the records, in file order.
+     */
+    public List<CountryRecord> getRecords()
+    {
+        return records;
+    }
+
+    /** See {@link CountryInfo#tryForISO(CharSequence)}. */
+    public CountryRecord tryForISO(CharSequence code)
+    {
+        return null == code ? null : tryForISO(code, 0, code.length());
+    }
+
+    /** See {@link CountryInfo#tryForISO(CharSequence, int, int)}. */
+    public CountryRecord tryForISO(CharSequence code, int start, int end)
+    {
+        if (null == code) { return null; }
+
+        if (start < 0 || end > code.length() || start > end)
+        {
+            throw new IndexOutOfBoundsException();
+        }
+
+        return isoIndex.get(code, start, end);
+    }
+
+    /** See {@link CountryInfo#tryForISO(int)}. */
+    public CountryRecord tryForISO(int code)
+    {
+        return isoIndex.get(code);
+    }
+
+    /** See {@link CountryInfo#tryForCode(CodeScheme, CharSequence)}. */
+    public CountryRecord tryForCode(CodeScheme scheme, CharSequence code)
+    {
+        if (null == code) { return null; }
+
+        return scheme.isISO() ? isoIndex.get(scheme, code) : codeIndexes.get(scheme.ordinal()).get(code, 0, code.length());
+    }
+
+    /** See {@link CountryInfo#allForCode(CodeScheme, CharSequence)}. */
+    public List<CountryRecord> allForCode(CodeScheme scheme, CharSequence code)
+    {
+        if (null == code) { return Collections.emptyList(); }
+
+        return scheme.isISO() ? isoIndex.getAll(scheme, code) : codeIndexes.get(scheme.ordinal()).getAll(code, 0, code.length());
+    }
+
+    /** See {@link CountryInfo#forPhoneNumber(CharSequence)}. */
+    public List<CountryRecord> forPhoneNumber(CharSequence number)
+    {
+        return null == number ? Collections.<CountryRecord>emptyList() : dialIndex.match(number);
+    }
+
+    /** See {@link CountryInfo#tryForHostname(CharSequence)}. */
+    public CountryRecord tryForHostname(CharSequence name)
+    {
+        return null == name ? null : ccTLDIndex.get(name, 0, name.length());
+    }
+
+    /** See {@link CountryInfo#ccTLDIssues()}. */
+    public List<String> ccTLDIssues()
+    {
+        return ccTLDIndex.issues();
+    }
+
+    /** See {@link CountryInfo#tryForName(CharSequence)}. */
+    public CountryRecord tryForName(CharSequence name)
+    {
+        return null == name ? null : nameIndex.get(name);
+    }
+
+    /** See {@link CountryInfo#searchByName(CharSequence, int)}. */
+    public List<CountryRecord> searchByName(CharSequence prefix, int limit)
+    {
+        return null == prefix ? Collections.<CountryRecord>emptyList() : nameIndex.search(prefix, limit);
+    }
+
+    /**
+     * Read a dataset in CSV format.
+     *
+     * @throws IOException
+     *         Reading failed.
+     *
+     * @throws IllegalArgumentException
+     *         The data is malformed.
+     */
+    public static CountryDataset readCsv(Reader in) throws IOException
+    {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        List<CountryRecord> records = new ArrayList<>();
+        Integer version = null;
+        boolean header = false;
+        int lineNumber = 0;
+
+        for (String line; null != (line = reader.readLine()); )
+        {
+            lineNumber++;
+
+            if (line.trim().isEmpty()) { continue; }
+
+            if (line.startsWith("#"))
+            {
+                if (line.startsWith("#version="))
+                {
+                    version = Integer.valueOf(line.substring("#version=".length()).trim());
+                }
+                continue;
+            }
+
+            if (!header)
+            {
+                if (!CSV_HEADER.equals(line.trim())) { throw new IllegalArgumentException("line " + lineNumber + ": expected header " + CSV_HEADER); }
+                header = true;
+                continue;
+            }
+
+            List<String> f = splitCsv(line, lineNumber);
+
+            try
+            {
+                records.add(new CountryRecord(f.get(0), f.get(1), f.get(2), Integer.parseInt(f.get(3).trim()),
+                        f.get(4), f.get(5), f.get(6), f.get(7), f.get(8), f.get(9), f.get(10), f.get(11),
+                        f.get(12), f.get(13), f.get(14)));
+            }
+            catch (NumberFormatException e)
+            {
+                throw new IllegalArgumentException("line " + lineNumber + ": invalid numeric code", e);
+            }
+        }
+
+        if (null == version) { throw new IllegalArgumentException("missing #version= line"); }
+
+        return new CountryDataset(version, records);
+    }
+
+    /**
+     * Write this dataset in CSV format.
+     */
+    public void writeCsv(Writer out) throws IOException
+    {
+        out.write("#version=" + version + "\n");
+        out.write(CSV_HEADER + "\n");
+
+        for (CountryRecord r : records)
+        {
+            String[] f = fields(r);
+            for (int i = 0; i < f.length; i++)
+            {
+                if (i > 0) { out.write(','); }
+                out.write(quote(f[i]));
+            }
+            out.write('\n');
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Read a dataset in binary snapshot format.
+     *
+     * @throws IOException
+     *         Reading failed or the data is not a snapshot.
+     */
+    public static CountryDataset readSnapshot(InputStream in) throws IOException
+    {
+        DataInputStream data = new DataInputStream(in);
+
+        if (data.readInt() != SNAPSHOT_MAGIC) { throw new IOException("not a country dataset snapshot"); }
+        if (data.readShort() != SNAPSHOT_FORMAT) { throw new IOException("unsupported snapshot format"); }
+
+        int version = data.readInt();
+        int count = data.readInt();
+        List<CountryRecord> records = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++)
+        {
+            String[] f = new String[COLUMNS];
+            for (int j = 0; j < COLUMNS; j++) { f[j] = 3 == j ? null : data.readUTF(); }
+            int isoNum = data.readShort();
+
+            records.add(new CountryRecord(f[0], f[1], f[2], isoNum, f[4], f[5], f[6], f[7],
+                    f[8], f[9], f[10], f[11], f[12], f[13], f[14]));
+        }
+
+        return new CountryDataset(version, records);
+    }
+
+    /**
+     * Write this dataset in binary snapshot format.
+     */
+    public void writeSnapshot(OutputStream out) throws IOException
+    {
+        DataOutputStream data = new DataOutputStream(out);
+
+        data.writeInt(SNAPSHOT_MAGIC);
+        data.writeShort(SNAPSHOT_FORMAT);
+        data.writeInt(version);
+        data.writeInt(records.size());
+
+        for (CountryRecord r : records)
+        {
+            String[] f = fields(r);
+            for (int j = 0; j < COLUMNS; j++) { if (3 != j) { data.writeUTF(f[j]); } }
+            data.writeShort(r.getISONum());
+        }
+
+        data.flush();
+    }
+
+    private static String[] fields(CountryRecord r)
+    {
+        return new String[]
+        {
+            r.getISOa3(), r.getISOa2(), r.getCCTLD(), String.valueOf(r.getISONum()), r.getITU(),
+            r.getFIPS(), r.getIOC(), r.getFIFA(), r.getDS(), r.getWMO(), r.getGAUL(),
+            r.getMARC(), r.getDial(), r.getCountryName(), r.getIndependent()
+        };
+    }
+
+    private static String quote(String field)
+    {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0) { return field; }
+
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+
+    private static List<String> splitCsv(String line, int lineNumber)
+    {
+        List<String> fields = new ArrayList<>(COLUMNS);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++)
+        {
+            char c = line.charAt(i);
+
+            if (quoted)
+            {
+                if (c != '"')
+                {
+                    field.append(c);
+                }
+                else if (i + 1 < line.length() && line.charAt(i + 1) == '"')
+                {
+                    field.append('"');
+                    i++;
+                }
+                else
+                {
+                    quoted = false;
+                }
+            }
+            else if (c == '"')
+            {
+                quoted = true;
+            }
+            else if (c == ',')
+            {
+                fields.add(field.toString());
+                field.setLength(0);
+            }
+            else
+            {
+                field.append(c);
+            }
+        }
+
+        if (quoted) { throw new IllegalArgumentException("line " + lineNumber + ": unterminated quote"); }
+
+        fields.add(field.toString());
+
+        if (fields.size() != COLUMNS)
+        {
+            throw new IllegalArgumentException("line " + lineNumber + ": expected " + COLUMNS + " fields, got " + fields.size());
+        }
+
+        return fields;
+    }
+}
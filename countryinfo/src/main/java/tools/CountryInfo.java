@@ -22,8 +22,12 @@
 
 package tools;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Misc codes about countries.
@@ -39,7 +43,10 @@ import java.util.Map;
  * code ({@link #getISONum()}).
  * In addition, there are static methods to get a CountryInfo instance that
  * corresponds to a given alpha-3/alpha-2/numeric code ({@link #forISO(String)},
- * {@link #forISO(int)}).
+ * {@link #forISO(int)}), and non-throwing variants that return null on a miss
+ * ({@link #tryForISO(CharSequence)}, {@link #tryForISO(int)}).
+ * The other code schemes (FIPS, IOC, FIFA, ...) can be searched through
+ * {@link #forCode(CodeScheme, CharSequence)}.
  * </p>
  *
  * <pre>
@@ -64,7 +71,7 @@ import java.util.Map;
  * 
  * @version 2013-02-20
  */
-public enum CountryInfo {
+public enum CountryInfo implements CountryAttributes {
 	
 // Data sources used:
 // #1: http://www.statoids.com/wab.html
@@ -338,18 +345,64 @@ ZWE("ZW", ".zw", 716, "ZWE", "ZI", "ZIM", "ZIM",  "ZW", "ZW", "271", "rh", "263"
     private final String countryName;
     private final String independent;
     
-    private static final Map<String, CountryInfo> isoAlpha2Map = new HashMap<>();
-    private static final Map<Integer, CountryInfo> isoNumMap = new HashMap<>();
+    private static final CountryInfo[] VALUES = values();
+
+    /**
+     * Ordinal written by the bulk lookups for inputs that do not resolve.
+     */
+    public static final short NO_ORDINAL = -1;
 
     private static final String INVALID_ISO_CODE = "invalid ISO 3166 code";
 
-    static
+    // Every lookup index is built on first use rather than when the class is
+    // initialized, so code that only reads the constants pays for none of
+    // them. The holder classes below are initialized by the JVM, once and
+    // thread-safely, the first time they are touched.
+
+    // Dense direct-indexed tables: alpha-2 and alpha-3 codes are folded to
+    // base-26 indexes, numeric codes index the table directly.
+    private static final class IsoTables
     {
-        for (CountryInfo ci : values())
+        static final CodeIndex.Iso<CountryInfo> index = new CodeIndex.Iso<>(Arrays.asList(VALUES));
+    }
+
+    private static final class DialHolder
+    {
+        static final DialIndex<CountryInfo> index = new DialIndex<>(Arrays.asList(VALUES));
+    }
+
+    private static final class CcTldHolder
+    {
+        static final CcTldIndex<CountryInfo> index = new CcTldIndex<>(Arrays.asList(VALUES));
+    }
+
+    private static final class SovereigntyHolder
+    {
+        static final SovereigntyIndex index = new SovereigntyIndex(VALUES);
+    }
+
+    private static final class NameHolder
+    {
+        static final NameIndex<CountryInfo> index = new NameIndex<>(Arrays.asList(VALUES));
+    }
+
+    // Reverse indexes for the secondary code schemes, by CodeScheme ordinal,
+    // each built on first use of its scheme. Two threads racing on the same
+    // scheme may both build it; one result wins and both are equivalent.
+    private static final AtomicReferenceArray<CodeIndex<CountryInfo>> codeIndexes =
+            new AtomicReferenceArray<>(CodeScheme.values().length);
+
+    private static CodeIndex<CountryInfo> codeIndex(CodeScheme scheme)
+    {
+        CodeIndex<CountryInfo> index = codeIndexes.get(scheme.ordinal());
+
+        if (null == index)
         {
-        	isoAlpha2Map.put(ci.getISOa2(), ci);
-            isoNumMap.put(ci.getISONum(), ci);
+            codeIndexes.compareAndSet(scheme.ordinal(), null, CodeIndex.forScheme(scheme, Arrays.asList(VALUES)));
+            index = codeIndexes.get(scheme.ordinal());
         }
+
+        return index;
     }
     
     private CountryInfo
@@ -391,7 +444,7 @@ ZWE("ZW", ".zw", 716, "ZWE", "ZI", "ZIM", "ZIM",  "ZW", "ZW", "271", "rh", "263"
      * <a href="http://en.wikipedia.org/wiki/ISO_3166-1_alpha-2">alpha-2</a> or
      * <a href="http://en.wikipedia.org/wiki/ISO_3166-1_alpha-3">alpha-3</a> code.
      *
-     * @param isoCode
+     * @param code
      *         An ISO 3166-1 <a href="http://en.wikipedia.org/wiki/ISO_3166-1_alpha-2"
      *         >alpha-2</a> or <a href="http://en.wikipedia.org/wiki/ISO_3166-1_alpha-3"
      *         >alpha-3</a> code.
@@ -401,60 +454,625 @@ ZWE("ZW", ".zw", 716, "ZWE", "ZI", "ZIM", "ZIM",  "ZW", "ZW", "271", "rh", "263"
      */
     public static CountryInfo forISO(String code)
     {
-        if (code != null)
+        CountryInfo ci = null == code ? null : lookupISO(code, 0, code.length());
+        if (LookupStats.ENABLED) { LookupStats.record(LookupStats.Method.FOR_ISO, isoScheme(code), null != ci, code); }
+        if (null == ci) { throw new IllegalArgumentException(INVALID_ISO_CODE + ": " + quote(code)); }
+
+        return ci;
+    }
+
+    /**
+     * Get a CountryInfo that corresponds to the given
+     * <a href="http://en.wikipedia.org/wiki/ISO_3166-1_numeric">ISO 3166-1
+     * numeric</a> code.
+     *
+     * @param code
+     *         An <a href="http://en.wikipedia.org/wiki/ISO_3166-1_numeric"
+     *         >ISO 3166-1 numeric</a> code.
+     *
+     * @return
+     *         A CountryInfo instance, or IllegalArgumentException if not found.
+     */
+    public static CountryInfo forISO(int code)
+    {
+        CountryInfo ci = lookupISO(code);
+        if (LookupStats.ENABLED) { LookupStats.record(LookupStats.Method.FOR_ISO, CodeScheme.ISO_NUMERIC, null != ci, code); }
+        if (null == ci) { throw new IllegalArgumentException(INVALID_ISO_CODE + ": " + code); }
+        
+        return ci;
+    }
+
+    /**
+     * Get the current CountryInfo for an ISO 3166-1 alpha-2, alpha-3 or
+     * numeric code as it was assigned on the given day, for example COD for
+     * "ZAR" before 1997 or ROU for "ROM" before 2002. See {@link CodeHistory}.
+     *
+     * @param code
+     *         An ISO 3166-1 code, current or retired.
+     *
+     * @param date
+     *         The day the code was used.
+     *
+     * @return
+     *         A CountryInfo instance, or IllegalArgumentException if the code
+     *         was not valid on that day or the country it stood for no longer
+     *         exists (use {@link CodeHistory#tryForISO(CharSequence, LocalDate)}
+     *         to get its successors).
+     */
+    public static CountryInfo forISO(CharSequence code, LocalDate date)
+    {
+        HistoricCode h = CodeHistory.tryForISO(code, date);
+
+        if (null == h)
         {
-        	code = code.toUpperCase();
-        	
-            switch (code.length())
-            {
-                case 2:		return forISOa2(code);
-                case 3:		return forISOa3(code);
-            }
+            throw new IllegalArgumentException(INVALID_ISO_CODE + " on " + date + ": " + quote(code));
         }
-        
-		throw new IllegalArgumentException(INVALID_ISO_CODE);
+        if (null == h.getCountry())
+        {
+            throw new IllegalArgumentException(quote(code) + " (" + h.getName() + ") was dissolved, succeeded by "
+                    + h.getSuccessors());
+        }
+
+        return h.getCountry();
     }
 
-    private static CountryInfo forISOa3(String code)
+    /**
+     * Same as {@link #forISO(CharSequence, LocalDate)}, returning null
+     * instead of throwing.
+     */
+    public static CountryInfo tryForISO(CharSequence code, LocalDate date)
     {
-        try
+        HistoricCode h = CodeHistory.tryForISO(code, date);
+
+        return null == h ? null : h.getCountry();
+    }
+
+    /**
+     * Get a CountryInfo that corresponds to the given ISO 3166-1 alpha-2 or
+     * alpha-3 code, without throwing on a miss.
+     *
+     * <p>
+     * The code is matched case-insensitively using ASCII case folding, so the
+     * result does not depend on the default locale. This method never
+     * allocates.
+     * </p>
+     *
+     * @param code
+     *         An ISO 3166-1 alpha-2 or alpha-3 code. May be null.
+     *
+     * @return
+     *         A CountryInfo instance, or null if not found.
+     */
+    public static CountryInfo tryForISO(CharSequence code)
+    {
+        CountryInfo ci = null == code ? null : lookupISO(code, 0, code.length());
+        if (LookupStats.ENABLED) { LookupStats.record(LookupStats.Method.TRY_FOR_ISO, isoScheme(code), null != ci, code); }
+
+        return ci;
+    }
+
+    /**
+     * Get a CountryInfo that corresponds to the ISO 3166-1 alpha-2 or alpha-3
+     * code found in the given region of a character sequence, without
+     * throwing on a miss.
+     *
+     * @param code
+     *         Character sequence holding the code. May be null.
+     *
+     * @param start
+     *         Index of the first character of the code.
+     *
+     * @param end
+     *         Index after the last character of the code.
+     *
+     * @return
+     *         A CountryInfo instance, or null if not found.
+     *
+     * @throws IndexOutOfBoundsException
+     *         The region is not within the character sequence.
+     */
+    public static CountryInfo tryForISO(CharSequence code, int start, int end)
+    {
+        if (null == code) { return null; }
+
+        if (start < 0 || end > code.length() || start > end)
         {
-            return Enum.valueOf(CountryInfo.class, code);
+            throw new IndexOutOfBoundsException();
         }
-        catch (IllegalArgumentException e)
+
+        CountryInfo ci = lookupISO(code, start, end);
+
+        if (LookupStats.ENABLED)
         {
-        	throw new IllegalArgumentException(INVALID_ISO_CODE, e);
+            CodeScheme scheme = end - start == 2 ? CodeScheme.ISO_ALPHA2 : end - start == 3 ? CodeScheme.ISO_ALPHA3 : null;
+            LookupStats.record(LookupStats.Method.TRY_FOR_ISO, scheme, null != ci, code, start, end);
         }
+
+        return ci;
     }
 
+    /**
+     * Same as {@link #tryForISO(CharSequence, int, int)} without the bounds
+     * check, and without being counted by {@link LookupStats}.
+     */
+    static CountryInfo lookupISO(CharSequence code, int start, int end)
+    {
+        return IsoTables.index.get(code, start, end);
+    }
 
-    private static CountryInfo forISOa2(String code)
+    /**
+     * Get a CountryInfo that corresponds to the given ISO 3166-1 numeric
+     * code, without throwing on a miss.
+     *
+     * @param code
+     *         An ISO 3166-1 numeric code.
+     *
+     * @return
+     *         A CountryInfo instance, or null if not found.
+     */
+    public static CountryInfo tryForISO(int code)
     {
-        CountryInfo cc = isoAlpha2Map.get(code);
-        if (null == cc) { throw new IllegalArgumentException(INVALID_ISO_CODE); }
-        
-        return cc;
+        CountryInfo ci = lookupISO(code);
+        if (LookupStats.ENABLED) { LookupStats.record(LookupStats.Method.TRY_FOR_ISO, CodeScheme.ISO_NUMERIC, null != ci, code); }
+
+        return ci;
     }
 
+    /**
+     * Same as {@link #tryForISO(int)}, without being counted by
+     * {@link LookupStats}.
+     */
+    static CountryInfo lookupISO(int code)
+    {
+        return IsoTables.index.get(code);
+    }
 
     /**
-     * Get a CountryInfo that corresponds to the given
-     * <a href="http://en.wikipedia.org/wiki/ISO_3166-1_numeric">ISO 3166-1
-     * numeric</a> code.
+     * Get a CountryInfo that corresponds to the given code in the given
+     * scheme.
+     *
+     * <p>
+     * When a code is shared by several countries (for example the DS code
+     * "USA"), the only independent one among them is returned. Use
+     * {@link #allForCode(CodeScheme, CharSequence)} to get every candidate.
+     * </p>
+     *
+     * @param scheme
+     *         The code scheme.
      *
      * @param code
-     *         An <a href="http://en.wikipedia.org/wiki/ISO_3166-1_numeric"
-     *         >ISO 3166-1 numeric</a> code.
+     *         A code in that scheme, matched ignoring ASCII case.
+     *
+     * @return
+     *         A CountryInfo instance, or IllegalArgumentException if not found
+     *         or if the code is shared and none of its countries is preferred.
+     */
+    public static CountryInfo forCode(CodeScheme scheme, CharSequence code)
+    {
+        CountryInfo ci = lookupCode(scheme, code);
+        if (LookupStats.ENABLED) { LookupStats.record(LookupStats.Method.FOR_CODE, scheme, null != ci, code); }
+        if (null == ci) { throw new IllegalArgumentException("invalid " + scheme + " code: " + quote(code)); }
+
+        return ci;
+    }
+
+    /**
+     * Get a CountryInfo that corresponds to the given code in the given
+     * scheme, without throwing on a miss. This method never allocates.
+     *
+     * @param scheme
+     *         The code scheme.
+     *
+     * @param code
+     *         A code in that scheme, matched ignoring ASCII case. May be null.
+     *
+     * @return
+     *         A CountryInfo instance, or null if not found or if the code is
+     *         shared and none of its countries is preferred.
+     */
+    public static CountryInfo tryForCode(CodeScheme scheme, CharSequence code)
+    {
+        CountryInfo ci = lookupCode(scheme, code);
+        if (LookupStats.ENABLED) { LookupStats.record(LookupStats.Method.TRY_FOR_CODE, scheme, null != ci, code); }
+
+        return ci;
+    }
+
+    /**
+     * Same as {@link #tryForCode(CodeScheme, CharSequence)}, without being
+     * counted by {@link LookupStats}; likewise for the other lookup*
+     * methods.
+     */
+    static CountryInfo lookupCode(CodeScheme scheme, CharSequence code)
+    {
+        if (null == code) { return null; }
+
+        return scheme.isISO() ? IsoTables.index.get(scheme, code) : codeIndex(scheme).get(code, 0, code.length());
+    }
+
+    /**
+     * Get all the countries that carry the given code in the given scheme.
+     *
+     * @param scheme
+     *         The code scheme.
+     *
+     * @param code
+     *         A code in that scheme, matched ignoring ASCII case. May be null.
+     *
+     * @return
+     *         An immutable list of countries, empty if not found.
+     */
+    public static List<CountryInfo> allForCode(CodeScheme scheme, CharSequence code)
+    {
+        List<CountryInfo> all = lookupAllCodes(scheme, code);
+        if (LookupStats.ENABLED) { LookupStats.record(LookupStats.Method.ALL_FOR_CODE, scheme, !all.isEmpty(), code); }
+
+        return all;
+    }
+
+    static List<CountryInfo> lookupAllCodes(CodeScheme scheme, CharSequence code)
+    {
+        if (null == code) { return Collections.emptyList(); }
+
+        return scheme.isISO() ? IsoTables.index.getAll(scheme, code) : codeIndex(scheme).getAll(code, 0, code.length());
+    }
+
+    /** Same as {@code forCode(CodeScheme.FIPS, code)}. */
+    public static CountryInfo forFIPS(CharSequence code) { return forCode(CodeScheme.FIPS, code); }
+
+    /** Same as {@code forCode(CodeScheme.IOC, code)}. */
+    public static CountryInfo forIOC(CharSequence code)  { return forCode(CodeScheme.IOC, code); }
+
+    /** Same as {@code forCode(CodeScheme.FIFA, code)}. */
+    public static CountryInfo forFIFA(CharSequence code) { return forCode(CodeScheme.FIFA, code); }
+
+    /** Same as {@code forCode(CodeScheme.ITU, code)}. */
+    public static CountryInfo forITU(CharSequence code)  { return forCode(CodeScheme.ITU, code); }
+
+    /** Same as {@code forCode(CodeScheme.WMO, code)}. */
+    public static CountryInfo forWMO(CharSequence code)  { return forCode(CodeScheme.WMO, code); }
+
+    /** Same as {@code forCode(CodeScheme.GAUL, code)}. */
+    public static CountryInfo forGAUL(CharSequence code) { return forCode(CodeScheme.GAUL, code); }
+
+    /** Same as {@code forCode(CodeScheme.MARC, code)}. */
+    public static CountryInfo forMARC(CharSequence code) { return forCode(CodeScheme.MARC, code); }
+
+    /** Same as {@code forCode(CodeScheme.DS, code)}. */
+    public static CountryInfo forDS(CharSequence code)   { return forCode(CodeScheme.DS, code); }
+
+    /**
+     * Get the countries whose dial code is the longest prefix of the given
+     * phone number.
+     *
+     * <pre>
+     * CountryInfo.forPhoneNumber("+1 264 497 1234");  <span style="color: darkgreen;">// [AIA]</span>
+     * CountryInfo.forPhoneNumber("0061 2 9876 5432"); <span style="color: darkgreen;">// [AUS, CCK, CXR]</span>
+     * </pre>
+     *
+     * <p>
+     * A leading "+" or "00" is skipped, as are spaces and the separators
+     * {@code - . ( ) /}. Several countries are returned when they share the
+     * matched dial code. This method never allocates.
+     * </p>
+     *
+     * @param number
+     *         A phone number in international format. May be null.
+     *
+     * @return
+     *         An immutable list of countries, empty if no dial code matches.
+     */
+    public static List<CountryInfo> forPhoneNumber(CharSequence number)
+    {
+        List<CountryInfo> all = lookupPhoneNumber(number);
+        if (LookupStats.ENABLED) { LookupStats.record(LookupStats.Method.FOR_PHONE_NUMBER, null, !all.isEmpty(), number); }
+
+        return all;
+    }
+
+    static List<CountryInfo> lookupPhoneNumber(CharSequence number)
+    {
+        return null == number ? Collections.<CountryInfo>emptyList() : DialHolder.index.match(number);
+    }
+
+    /**
+     * Get a CountryInfo that corresponds to the ccTLD of the given host name
+     * or e-mail address.
+     *
+     * @param name
+     *         A host name such as "www.example.co.jp" or an e-mail address.
      *
      * @return
      *         A CountryInfo instance, or IllegalArgumentException if not found.
      */
-    public static CountryInfo forISO(int code)
+    public static CountryInfo forHostname(CharSequence name)
     {
-        CountryInfo cc = isoNumMap.get(code);
-        if (null == cc) { throw new IllegalArgumentException(INVALID_ISO_CODE); }
-        
-        return cc;
+        CountryInfo ci = lookupHostname(name);
+        if (LookupStats.ENABLED) { LookupStats.record(LookupStats.Method.FOR_HOSTNAME, null, null != ci, name); }
+        if (null == ci) { throw new IllegalArgumentException("no ccTLD in host name: " + quote(name)); }
+
+        return ci;
+    }
+
+    /**
+     * Get a CountryInfo that corresponds to the ccTLD of the given host name
+     * or e-mail address, without throwing on a miss.
+     *
+     * <p>
+     * Only the last label is looked at, ignoring case, trailing dots and
+     * surrounding whitespace. This method never allocates.
+     * </p>
+     *
+     * @param name
+     *         A host name or an e-mail address. May be null.
+     *
+     * @return
+     *         A CountryInfo instance, or null if the last label is not a
+     *         known ccTLD (e.g. ".com").
+     */
+    public static CountryInfo tryForHostname(CharSequence name)
+    {
+        CountryInfo ci = lookupHostname(name);
+        if (LookupStats.ENABLED) { LookupStats.record(LookupStats.Method.TRY_FOR_HOSTNAME, null, null != ci, name); }
+
+        return ci;
+    }
+
+    static CountryInfo lookupHostname(CharSequence name)
+    {
+        return null == name ? null : CcTldHolder.index.get(name, 0, name.length());
+    }
+
+    /**
+     * Resolve newline-separated host names from a buffer of ASCII bytes.
+     *
+     * <p>
+     * Host names are read from the buffer's position up to its limit, the last
+     * one being terminated either by a newline or by the limit. For each one the
+     * ordinal of the matching country, or {@link #NO_ORDINAL}, is written to
+     * {@code ordinals}. Reading stops early when {@code ordinals} is full, and
+     * the buffer's position is left after the last host name consumed.
+     * </p>
+     *
+     * @param hostnames
+     *         Newline-separated host names, "\r\n" line ends allowed.
+     *
+     * @param ordinals
+     *         Receives one ordinal per host name.
+     *
+     * @return
+     *         The number of host names consumed.
+     */
+    public static int forHostnames(ByteBuffer hostnames, short[] ordinals)
+    {
+        AsciiSequence seq = new AsciiSequence();
+        int limit = hostnames.limit();
+        int pos = hostnames.position();
+        int count = 0;
+
+        while (pos < limit && count < ordinals.length)
+        {
+            int end = pos;
+            while (end < limit && hostnames.get(end) != '\n') { end++; }
+
+            seq.wrap(hostnames, pos, end);
+            CountryInfo ci = CcTldHolder.index.get(seq, 0, end - pos);
+            ordinals[count++] = null == ci ? NO_ORDINAL : (short) ci.ordinal();
+            if (LookupStats.ENABLED) { LookupStats.record(LookupStats.Method.FOR_HOSTNAMES, null, null != ci, seq); }
+
+            pos = end < limit ? end + 1 : end;
+        }
+
+        hostnames.position(pos);
+
+        return count;
+    }
+
+    /**
+     * Get the inconsistencies found in the ccTLD data when it was indexed:
+     * ccTLDs claimed by several countries, and ccTLDs that are the alpha-2
+     * code of another country.
+     *
+     * @return
+     *         An immutable list of human-readable descriptions, empty if the
+     *         data is consistent.
+     */
+    public static List<String> ccTLDIssues()
+    {
+        return CcTldHolder.index.issues();
+    }
+
+    /**
+     * Get a CountryInfo whose country name equals the given name, ignoring
+     * case, diacritics and punctuation ("cote d'ivoire" finds
+     * "Côte d'Ivoire").
+     *
+     * @param name
+     *         A country name.
+     *
+     * @return
+     *         A CountryInfo instance, or IllegalArgumentException if not found.
+     */
+    public static CountryInfo forName(CharSequence name)
+    {
+        CountryInfo ci = lookupName(name);
+        if (LookupStats.ENABLED) { LookupStats.record(LookupStats.Method.FOR_NAME, null, null != ci, name); }
+        if (null == ci) { throw new IllegalArgumentException("invalid country name: " + quote(name)); }
+
+        return ci;
+    }
+
+    /**
+     * Get a CountryInfo whose country name equals the given name, ignoring
+     * case, diacritics and punctuation, without throwing on a miss.
+     *
+     * @param name
+     *         A country name. May be null.
+     *
+     * @return
+     *         A CountryInfo instance, or null if not found.
+     */
+    public static CountryInfo tryForName(CharSequence name)
+    {
+        CountryInfo ci = lookupName(name);
+        if (LookupStats.ENABLED) { LookupStats.record(LookupStats.Method.TRY_FOR_NAME, null, null != ci, name); }
+
+        return ci;
+    }
+
+    static CountryInfo lookupName(CharSequence name)
+    {
+        return null == name ? null : NameHolder.index.get(name);
+    }
+
+    /**
+     * Get the countries whose name, or a word of whose name, starts with the
+     * given text, for autocompletion.
+     *
+     * <pre>
+     * CountryInfo.searchByName("congo", 5); <span style="color: darkgreen;">// [COD, COG]</span>
+     * CountryInfo.searchByName("aland", 5); <span style="color: darkgreen;">// [ALA]</span>
+     * </pre>
+     *
+     * <p>
+     * Matching ignores case, diacritics and punctuation. Exact matches come
+     * first, then names starting with the text, then names with a later word
+     * starting with it; ties go to the shorter name, then alphabetically.
+     * Only the query buffer and the result are allocated.
+     * </p>
+     *
+     * @param prefix
+     *         The text typed so far. May be null.
+     *
+     * @param limit
+     *         Maximum number of results.
+     *
+     * @return
+     *         An immutable list of at most {@code limit} countries, best first.
+     */
+    public static List<CountryInfo> searchByName(CharSequence prefix, int limit)
+    {
+        List<CountryInfo> all = lookupNames(prefix, limit);
+        if (LookupStats.ENABLED) { LookupStats.record(LookupStats.Method.SEARCH_BY_NAME, null, !all.isEmpty(), prefix); }
+
+        return all;
+    }
+
+    static List<CountryInfo> lookupNames(CharSequence prefix, int limit)
+    {
+        return null == prefix ? Collections.<CountryInfo>emptyList() : NameHolder.index.search(prefix, limit);
+    }
+
+    /**
+     * Resolve free-form country input, in whatever form it comes: an ISO
+     * 3166-1 code, a code of another scheme, a country name or the start of
+     * one, a dialing prefix or a host name.
+     *
+     * <pre>
+     * CountryInfo.resolve("jp").getCountry();      <span style="color: darkgreen;">// JPN, ISO_ALPHA2</span>
+     * CountryInfo.resolve("392").getCountry();     <span style="color: darkgreen;">// JPN, ISO_NUMERIC</span>
+     * CountryInfo.resolve("JA").getCountry();      <span style="color: darkgreen;">// JPN, FIPS</span>
+     * CountryInfo.resolve("+81").getCountry();     <span style="color: darkgreen;">// JPN, dialing prefix</span>
+     * CountryInfo.resolve("www.example.jp");       <span style="color: darkgreen;">// JPN, ccTLD</span>
+     * CountryInfo.resolve("Japan");                <span style="color: darkgreen;">// JPN, name</span>
+     * </pre>
+     *
+     * <p>
+     * See {@link Resolver} for the order in which the lookups are tried.
+     * Results are cached by the default resolver.
+     * </p>
+     *
+     * @param input
+     *         Country input. May be null.
+     *
+     * @return
+     *         The country and how it was found, the candidates if the input
+     *         is ambiguous, or {@link Resolution#NONE}.
+     */
+    public static Resolution resolve(CharSequence input)
+    {
+        return Resolver.getDefault().resolve(input);
+    }
+
+    /**
+     * Get the CountryInfo with the given ordinal, as written by the bulk
+     * lookups. Unlike {@code values()[ordinal]}, this does not copy the
+     * array of constants.
+     *
+     * @param ordinal
+     *         An ordinal.
+     *
+     * @return
+     *         A CountryInfo instance, or null if the ordinal is out of range
+     *         (including {@link #NO_ORDINAL}).
+     */
+    public static CountryInfo forOrdinal(int ordinal)
+    {
+        if (ordinal < 0 || ordinal >= VALUES.length) { return null; }
+
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Scheme an ISO alpha code is counted under by {@link LookupStats}.
+     */
+    private static CodeScheme isoScheme(CharSequence code)
+    {
+        int length = null == code ? 0 : code.length();
+
+        return 2 == length ? CodeScheme.ISO_ALPHA2 : 3 == length ? CodeScheme.ISO_ALPHA3 : null;
+    }
+
+    /**
+     * Quote a rejected input for an exception message, cut to a sane length.
+     */
+    private static String quote(CharSequence value)
+    {
+        if (null == value) { return "null"; }
+
+        return value.length() <= 64 ? "\"" + value + "\"" : "\"" + value.subSequence(0, 64) + "\"...";
+    }
+
+    /**
+     * Parse a run of up to four ASCII digits. Returns -1 if the run is empty,
+     * too long or contains anything else.
+     */
+    static int parseNumeric(CharSequence code, int start, int end)
+    {
+        if (end <= start || end - start > 4) { return -1; }
+
+        int value = 0;
+
+        for (int i = start; i < end; i++)
+        {
+            int digit = code.charAt(i) - '0';
+            if (digit < 0 || digit > 9) { return -1; }
+
+            value = value * 10 + digit;
+        }
+
+        return value;
+    }
+
+    /**
+     * Fold a run of ASCII letters into a base-26 index, ignoring case.
+     * Returns -1 if any character is not an ASCII letter.
+     */
+    static int alphaIndex(CharSequence code, int start, int end)
+    {
+        int index = 0;
+
+        for (int i = start; i < end; i++)
+        {
+            // Setting bit 0x20 folds 'A'..'Z' onto 'a'..'z'; everything
+            // else lands outside the range and is rejected.
+            int letter = (code.charAt(i) | 0x20) - 'a';
+            if (letter < 0 || letter >= 26) { return -1; }
+
+            index = index * 26 + letter;
+        }
+
+        return index;
     }
     
     public final String getISOa3()  { return this.name(); }
@@ -472,6 +1090,59 @@ ZWE("ZW", ".zw", 716, "ZWE", "ZI", "ZIM", "ZIM",  "ZW", "ZW", "271", "rh", "263"
 	public final String getDial()   { return dial; }
 	public final String getCountryName() { return countryName; }
 	public final String getIndependent() { return independent; }
+
+    /**
+     * Get the sovereignty status, parsed from {@link #getIndependent()}.
+     */
+    public Sovereignty getSovereignty()
+    {
+        return SovereigntyHolder.index.status(this);
+    }
+
+    /**
+     * Get the sovereign state of a dependency, e.g. GBR for Bermuda.
+     *
+     * @return
+     *         The sovereign state, or null if this country is not a
+     *         dependency or its reference could not be resolved.
+     */
+    public CountryInfo getSovereign()
+    {
+        return SovereigntyHolder.index.sovereign(this);
+    }
+
+    /**
+     * Get the countries whose sovereign state is this one.
+     *
+     * @return
+     *         An immutable, possibly empty, set.
+     */
+    public CountrySet getDependents()
+    {
+        return SovereigntyHolder.index.dependents(this);
+    }
+
+    /**
+     * Check whether this country is a dependency of the given one.
+     */
+    public boolean isDependencyOf(CountryInfo sovereign)
+    {
+        return null != sovereign && SovereigntyHolder.index.sovereign(this) == sovereign;
+    }
+
+    /**
+     * Get the inconsistencies found in the {@link #getIndependent()} data
+     * when it was parsed: unrecognized statuses, references to unknown
+     * countries, and sovereigns that are not independent.
+     *
+     * @return
+     *         An immutable list of human-readable descriptions, empty if the
+     *         data is consistent.
+     */
+    public static List<String> sovereigntyIssues()
+    {
+        return SovereigntyHolder.index.issues();
+    }
 	
 	public static final int VERSION = 20130220;
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Map from countries to primitive {@code long} values, backed by a
+ * {@code long[]} indexed by ordinal. Every country maps to 0 until set.
+ * This class is not thread-safe; see {@link CountryCounters} for concurrent
+ * counting.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public final class CountryLongMap
+{
+    private final long[] values;
+
+    public CountryLongMap()
+    {
+        this(new long[CountryInfo.values().length]);
+    }
+
+    CountryLongMap(long[] values)
+    {
+        this.values = values;
+    }
+
+    public long get(CountryInfo ci)
+    {
+        return values[ci.ordinal()];
+    }
+
+    /**
+     * Get the value of the country with the given ordinal, as written by the
+     * bulk lookups, or 0.
+     */
+    public long getByOrdinal(int ordinal)
+    {
+        return ordinal < 0 || ordinal >= values.length ? 0 : values[ordinal];
+    }
+
+    public void put(CountryInfo ci, long value)
+    {
+        values[ci.ordinal()] = value;
+    }
+
+    /**
+     * Add to the value of a country.
+     *
+     * @return
+     *         The new value.
+     */
+    public long add(CountryInfo ci, long delta)
+    {
+        return values[ci.ordinal()] += delta;
+    }
+
+    /**
+     * Same as {@code add(ci, 1)}.
+     */
+    public long increment(CountryInfo ci)
+    {
+        return ++values[ci.ordinal()];
+    }
+
+    /**
+     * Get the sum of all values.
+     */
+    public long sum()
+    {
+        long sum = 0;
+        for (long v : values) { sum += v; }
+
+        return sum;
+    }
+
+    /**
+     * Get the countries with a non-zero value.
+     */
+    public CountrySet nonZero()
+    {
+        List<CountryInfo> keys = new ArrayList<>();
+
+        for (int i = 0; i < values.length; i++)
+        {
+            if (0 != values[i]) { keys.add(CountryInfo.forOrdinal(i)); }
+        }
+
+        return CountrySet.copyOf(keys);
+    }
+
+    public void clear()
+    {
+        Arrays.fill(values, 0);
+    }
+
+    /**
+     * Get a copy of the values, indexed by ordinal.
+     */
+    public long[] toArray()
+    {
+        return values.clone();
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder("{");
+
+        for (int i = 0; i < values.length; i++)
+        {
+            if (0 == values[i]) { continue; }
+            if (sb.length() > 1) { sb.append(", "); }
+            sb.append(CountryInfo.forOrdinal(i)).append('=').append(values[i]);
+        }
+
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Map from countries to values, backed by an array indexed by ordinal.
+ *
+ * <p>
+ * Lookups and updates are an array access; there is no hashing and no
+ * boxing of keys. Null values are not allowed, so {@code get} returning null
+ * means "absent". This class is not thread-safe.
+ * </p>
+ *
+ * @param <V>
+ *         Type of the values.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public final class CountryMap<V>
+{
+    private final Object[] values = new Object[CountryInfo.values().length];
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public V get(CountryInfo ci)
+    {
+        return (V) values[ci.ordinal()];
+    }
+
+    /**
+     * Get the value of the country with the given ordinal, as written by the
+     * bulk lookups, or null.
+     */
+    @SuppressWarnings("unchecked")
+    public V getByOrdinal(int ordinal)
+    {
+        return ordinal < 0 || ordinal >= values.length ? null : (V) values[ordinal];
+    }
+
+    public V getOrDefault(CountryInfo ci, V defaultValue)
+    {
+        V v = get(ci);
+
+        return null == v ? defaultValue : v;
+    }
+
+    public boolean containsKey(CountryInfo ci)
+    {
+        return null != values[ci.ordinal()];
+    }
+
+    /**
+     * Associate a value with a country.
+     *
+     * @return
+     *         The previous value, or null.
+     */
+    public V put(CountryInfo ci, V value)
+    {
+        if (null == value) { throw new IllegalArgumentException("value is null"); }
+
+        V previous = get(ci);
+        values[ci.ordinal()] = value;
+        if (null == previous) { size++; }
+
+        return previous;
+    }
+
+    /**
+     * Remove the value of a country.
+     *
+     * @return
+     *         The removed value, or null.
+     */
+    public V remove(CountryInfo ci)
+    {
+        V previous = get(ci);
+        values[ci.ordinal()] = null;
+        if (null != previous) { size--; }
+
+        return previous;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return 0 == size;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Get the countries that have a value.
+     */
+    public CountrySet keySet()
+    {
+        List<CountryInfo> keys = new ArrayList<>(size);
+
+        for (int i = 0; i < values.length; i++)
+        {
+            if (null != values[i]) { keys.add(CountryInfo.forOrdinal(i)); }
+        }
+
+        return CountrySet.copyOf(keys);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder("{");
+
+        for (int i = 0; i < values.length; i++)
+        {
+            if (null == values[i]) { continue; }
+            if (sb.length() > 1) { sb.append(", "); }
+            sb.append(CountryInfo.forOrdinal(i)).append('=').append(values[i]);
+        }
+
+        return sb.append('}').toString();
+    }
+}
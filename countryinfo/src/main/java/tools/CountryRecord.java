@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+/**
+ * One country of a loaded {@link CountryDataset}: the same attributes as a
+ * {@link CountryInfo} constant, but read from a data file rather than
+ * compiled in. Instances are immutable.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public final class CountryRecord implements CountryAttributes
+{
+    private final String isoA3;
+    private final String isoA2;
+    private final String ccTLD;
+    private final int isoNum;
+    private final String itu;
+    private final String fips;
+    private final String ioc;
+    private final String fifa;
+    private final String ds;
+    private final String wmo;
+    private final String gaul;
+    private final String marc;
+    private final String dial;
+    private final String countryName;
+    private final String independent;
+    private final CountryInfo countryInfo;
+
+    /**
+     * Create a record. The arguments follow the column order of the data
+     * file, which is that of the {@link CountryInfo} constants preceded by
+     * the alpha-3 code. Null strings are taken as empty.
+     */
+    public CountryRecord
+    (
+        String isoA3,
+        String isoA2,
+        String ccTLD,
+        int isoNum,
+        String itu,
+        String fips,
+        String ioc,
+        String fifa,
+        String ds,
+        String wmo,
+        String gaul,
+        String marc,
+        String dial,
+        String countryName,
+        String independent
+    )
+    {
+        this.isoA3 = nonNull(isoA3);
+        this.isoA2 = nonNull(isoA2);
+        this.ccTLD = nonNull(ccTLD);
+        this.isoNum = isoNum;
+        this.itu = nonNull(itu);
+        this.fips = nonNull(fips);
+        this.ioc = nonNull(ioc);
+        this.fifa = nonNull(fifa);
+        this.ds = nonNull(ds);
+        this.wmo = nonNull(wmo);
+        this.gaul = nonNull(gaul);
+        this.marc = nonNull(marc);
+        this.dial = nonNull(dial);
+        this.countryName = nonNull(countryName);
+        this.independent = nonNull(independent);
+        this.countryInfo = this.isoA3.length() == 3 ? CountryInfo.lookupISO(this.isoA3, 0, 3) : null;
+    }
+
+    /**
+     * Get a record holding the attributes of a compiled-in constant.
+     */
+    public static CountryRecord of(CountryInfo ci)
+    {
+        return new CountryRecord(ci.getISOa3(), ci.getISOa2(), ci.getCCTLD(), ci.getISONum(),
+                ci.getITU(), ci.getFIPS(), ci.getIOC(), ci.getFIFA(), ci.getDS(), ci.getWMO(),
+                ci.getGAUL(), ci.getMARC(), ci.getDial(), ci.getCountryName(), ci.getIndependent());
+    }
+
+    private static String nonNull(String s)
+    {
+        return null == s ? "" : s;
+    }
+
+    /**
+     * Get the compiled-in constant with the same alpha-3 code, or null if the
+     * country is not known to this build.
+     */
+    public CountryInfo getCountryInfo() { return countryInfo; }
+
+    public String getISOa3()  { return isoA3; }
+    public String getISOa2()  { return isoA2; }
+    public String getCCTLD()  { return ccTLD; }
+    public int    getISONum() { return isoNum; }
+    public String getITU()    { return itu; }
+    public String getFIPS()   { return fips; }
+    public String getIOC()    { return ioc; }
+    public String getFIFA()   { return fifa; }
+    public String getDS()     { return ds; }
+    public String getWMO()    { return wmo; }
+    public String getGAUL()   { return gaul; }
+    public String getMARC()   { return marc; }
+    public String getDial()   { return dial; }
+    public String getCountryName() { return countryName; }
+    public String getIndependent() { return independent; }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) { return true; }
+        if (!(o instanceof CountryRecord)) { return false; }
+
+        CountryRecord r = (CountryRecord) o;
+
+        return isoNum == r.isoNum && isoA3.equals(r.isoA3) && isoA2.equals(r.isoA2)
+            && ccTLD.equals(r.ccTLD) && itu.equals(r.itu) && fips.equals(r.fips)
+            && ioc.equals(r.ioc) && fifa.equals(r.fifa) && ds.equals(r.ds)
+            && wmo.equals(r.wmo) && gaul.equals(r.gaul) && marc.equals(r.marc)
+            && dial.equals(r.dial) && countryName.equals(r.countryName)
+            && independent.equals(r.independent);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return isoA3.hashCode() * 31 + isoNum;
+    }
+
+    /**
+     * Get the alpha-3 code.
+     */
+    @Override
+    public String toString()
+    {
+        return isoA3;
+    }
+}
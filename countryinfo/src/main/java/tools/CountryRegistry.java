@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holder of the current {@link CountryDataset}, which can be replaced at run
+ * time without blocking readers.
+ *
+ * <pre>
+ * CountryRegistry registry = CountryRegistry.{@link #getDefault()};
+ *
+ * <span style="color: darkgreen;">// Readers: one volatile read, then lookups on an immutable dataset.</span>
+ * CountryRecord r = registry.{@link #get()}.tryForCode(CodeScheme.IOC, "NED");
+ *
+ * <span style="color: darkgreen;">// Reloader: build everything off to the side, then swap.</span>
+ * registry.{@link #reload(Path) reload}(Paths.get("countries.csv"));
+ * </pre>
+ *
+ * <p>
+ * A reload parses the file and builds every index of the new dataset before
+ * publishing it with a single atomic reference swap, so a reader sees either
+ * the old dataset or the complete new one, never a partly built one. A
+ * failed reload leaves the current dataset in place. Reloads and publishes
+ * are serialized with each other, so the dataset published last always
+ * wins; readers never take a lock. A reader that needs several
+ * consistent lookups should call {@link #get()} once and keep the dataset.
+ * </p>
+ *
+ * <p>
+ * The compiled-in {@link CountryInfo} enum is the default dataset and is not
+ * affected by reloads.
+ * </p>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public final class CountryRegistry
+{
+    private static final CountryRegistry DEFAULT = new CountryRegistry(CountryDataset.fromCountryInfo());
+
+    private final AtomicReference<CountryDataset> current;
+    private volatile long lastReloadNanos;
+
+    /**
+     * Create a registry.
+     *
+     * @param initial
+     *         The dataset to start with.
+     */
+    public CountryRegistry(CountryDataset initial)
+    {
+        if (null == initial) { throw new IllegalArgumentException("dataset is null"); }
+
+        this.current = new AtomicReference<>(initial);
+    }
+
+    /**
+     * Get the process-wide registry, initially holding the compiled-in data.
+     */
+    public static CountryRegistry getDefault()
+    {
+        return DEFAULT;
+    }
+
+    /**
+     * Get the current dataset.
+     */
+    public CountryDataset get()
+    {
+        return current.get();
+    }
+
+    /**
+     * Replace the current dataset. Waits for a reload in progress to finish,
+     * so that the reload cannot overwrite the dataset published here.
+     *
+     * @return
+     *         The previous dataset.
+     */
+    public synchronized CountryDataset publish(CountryDataset dataset)
+    {
+        if (null == dataset) { throw new IllegalArgumentException("dataset is null"); }
+
+        return current.getAndSet(dataset);
+    }
+
+    /**
+     * Load a data file, in CSV or binary snapshot format (detected from its
+     * first bytes), and publish it.
+     *
+     * @return
+     *         The new dataset.
+     *
+     * @throws IOException
+     *         Reading failed; the current dataset is kept.
+     *
+     * @throws IllegalArgumentException
+     *         The data is malformed; the current dataset is kept.
+     */
+    public synchronized CountryDataset reload(Path file) throws IOException
+    {
+        long start = System.nanoTime();
+        CountryDataset dataset = load(file);
+
+        current.set(dataset);
+        lastReloadNanos = System.nanoTime() - start;
+
+        return dataset;
+    }
+
+    /**
+     * Get how long the last successful {@link #reload(Path)} took, from the
+     * start of reading to the swap, in nanoseconds; 0 if none happened yet.
+     */
+    public long getLastReloadNanos()
+    {
+        return lastReloadNanos;
+    }
+
+    /**
+     * Load a data file, in CSV or binary snapshot format, without publishing
+     * it.
+     */
+    public static CountryDataset load(Path file) throws IOException
+    {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file)))
+        {
+            in.mark(4);
+            byte[] magic = new byte[4];
+            int n = in.read(magic);
+            in.reset();
+
+            boolean snapshot = 4 == n
+                    && ((magic[0] & 0xFF) << 24 | (magic[1] & 0xFF) << 16 | (magic[2] & 0xFF) << 8 | (magic[3] & 0xFF))
+                       == CountryDataset.SNAPSHOT_MAGIC;
+
+            return snapshot ? CountryDataset.readSnapshot(in)
+                            : CountryDataset.readCsv(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,479 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set of countries, stored as a 256-bit bitmap indexed by ordinal.
+ *
+ * <pre>
+ * <span style="color: darkgreen;">// Geo-fencing rule: EU founders, minus what is denied.</span>
+ * CountrySet allow = CountrySet.{@link #parse(CharSequence, CodeScheme) parse}("BE,DE,FR,IT,LU,NL", CodeScheme.ISO_ALPHA2);
+ * CountrySet deny  = CountrySet.{@link #of(CountryInfo...) of}(CountryInfo.LUX);
+ * CountrySet rule  = allow.{@link #difference(CountrySet) difference}(deny);
+ *
+ * <span style="color: darkgreen;">// Per request: no allocation.</span>
+ * boolean ok = rule.{@link #contains(CountryInfo) contains}(country);
+ * </pre>
+ *
+ * <p>
+ * Queries ({@link #contains(CountryInfo) contains},
+ * {@link #intersects(CountrySet) intersects},
+ * {@link #containsAll(CountrySet) containsAll},
+ * {@link #cardinality() cardinality}, ...) never allocate. Set algebra returns
+ * a new set of four words, or an existing instance when the result equals one
+ * of the operands. Instances can be shared across threads without locking.
+ * </p>
+ *
+ * <p>
+ * The binary form ({@link #toBytes()}, {@link #toBase64()}) is 36 bytes: the
+ * {@link CountryCodec#ID_TABLE_VERSION} it was written under, followed by a
+ * 256-bit bitmap indexed by the stable {@link CountryCodec#toByteId(CountryInfo)
+ * byte ids} rather than by ordinal, all big-endian. Stored sets therefore
+ * survive dataset updates that add or reorder countries; decoding only
+ * rejects data written under an id table newer than this one.
+ * </p>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public final class CountrySet implements Iterable<CountryInfo>
+{
+    private static final int WORDS = 4;
+
+    /** Size in bytes of the binary form. */
+    public static final int BINARY_SIZE = 4 + WORDS * 8;
+
+    /** The empty set. */
+    public static final CountrySet NONE = new CountrySet(0, 0, 0, 0);
+
+    /** All countries. */
+    public static final CountrySet ALL;
+
+    /** All countries whose {@link CountryInfo#getIndependent()} is "Yes". */
+    public static final CountrySet INDEPENDENT;
+
+    static
+    {
+        CountryInfo[] values = CountryInfo.values();
+        if (values.length > WORDS * 64) { throw new IllegalStateException("too many countries for CountrySet"); }
+
+        long[] all = new long[WORDS];
+        long[] independent = new long[WORDS];
+
+        for (CountryInfo ci : values)
+        {
+            int o = ci.ordinal();
+            all[o >>> 6] |= 1L << o;
+            if ("Yes".equals(ci.getIndependent())) { independent[o >>> 6] |= 1L << o; }
+        }
+
+        ALL = new CountrySet(all[0], all[1], all[2], all[3]);
+        INDEPENDENT = new CountrySet(independent[0], independent[1], independent[2], independent[3]);
+    }
+
+    private final long w0;
+    private final long w1;
+    private final long w2;
+    private final long w3;
+
+    private CountrySet(long w0, long w1, long w2, long w3)
+    {
+        this.w0 = w0;
+        this.w1 = w1;
+        this.w2 = w2;
+        this.w3 = w3;
+    }
+
+    /**
+     * Get a set of the given countries.
+     */
+    public static CountrySet of(CountryInfo... countries)
+    {
+        return copyOf(Arrays.asList(countries));
+    }
+
+    /**
+     * Get a set of the given countries.
+     */
+    public static CountrySet copyOf(Iterable<CountryInfo> countries)
+    {
+        long[] w = new long[WORDS];
+
+        for (CountryInfo ci : countries)
+        {
+            int o = ci.ordinal();
+            w[o >>> 6] |= 1L << o;
+        }
+
+        return create(w[0], w[1], w[2], w[3]);
+    }
+
+    /**
+     * Parse a comma-separated list of ISO 3166-1 alpha-2, alpha-3 or numeric
+     * codes, e.g. "JP, USA, 250". Whitespace around codes and empty entries
+     * are ignored.
+     *
+     * @throws IllegalArgumentException
+     *         A code is not known.
+     */
+    public static CountrySet parse(CharSequence list)
+    {
+        return parse(list, null);
+    }
+
+    /**
+     * Parse a comma-separated list of codes in the given scheme. Whitespace
+     * around codes and empty entries are ignored. A code shared by several
+     * countries adds all of them (DS "USA" adds the United States and its
+     * territories).
+     *
+     * @param list
+     *         The codes.
+     *
+     * @param scheme
+     *         Scheme of the codes, or null for ISO 3166-1 alpha-2, alpha-3 or
+     *         numeric codes.
+     *
+     * @throws IllegalArgumentException
+     *         A code is not known.
+     */
+    public static CountrySet parse(CharSequence list, CodeScheme scheme)
+    {
+        long[] w = new long[WORDS];
+        int length = list.length();
+        int start = 0;
+
+        while (start <= length)
+        {
+            int end = start;
+            while (end < length && list.charAt(end) != ',') { end++; }
+
+            int s = start, e = end;
+            while (s < e && list.charAt(s) <= ' ') { s++; }
+            while (e > s && list.charAt(e - 1) <= ' ') { e--; }
+
+            if (s < e)
+            {
+                CharSequence code = list.subSequence(s, e);
+                Iterable<CountryInfo> found = resolve(code, scheme);
+                boolean any = false;
+
+                for (CountryInfo ci : found)
+                {
+                    int o = ci.ordinal();
+                    w[o >>> 6] |= 1L << o;
+                    any = true;
+                }
+
+                if (!any) { throw new IllegalArgumentException("invalid " + (null == scheme ? "ISO 3166" : scheme) + " code: " + code); }
+            }
+
+            start = end + 1;
+        }
+
+        return create(w[0], w[1], w[2], w[3]);
+    }
+
+    private static Iterable<CountryInfo> resolve(CharSequence code, CodeScheme scheme)
+    {
+        if (null != scheme) { return CountryInfo.lookupAllCodes(scheme, code); }
+
+        CountryInfo ci = CountryInfo.lookupISO(code, 0, code.length());
+        if (null == ci) { ci = CountryInfo.lookupCode(CodeScheme.ISO_NUMERIC, code); }
+
+        return null == ci ? Collections.<CountryInfo>emptyList() : Collections.singletonList(ci);
+    }
+
+    /**
+     * Decode the binary form written by {@link #toBytes()}.
+     *
+     * @throws IllegalArgumentException
+     *         The data is not {@link #BINARY_SIZE} bytes long, was written
+     *         under a newer id table, or holds an unassigned id.
+     */
+    public static CountrySet fromBytes(byte[] bytes)
+    {
+        if (bytes.length != BINARY_SIZE) { throw new IllegalArgumentException("invalid CountrySet length"); }
+
+        return read(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Decode the binary form at the buffer's position, advancing it by
+     * {@link #BINARY_SIZE} bytes.
+     *
+     * @throws IllegalArgumentException
+     *         The data was written under a newer id table, or holds an
+     *         unassigned id.
+     */
+    public static CountrySet read(ByteBuffer buffer)
+    {
+        CountryCodec.checkVersion(buffer.getInt());
+
+        long[] w = new long[WORDS];
+
+        for (int i = 0; i < WORDS; i++)
+        {
+            long ids = buffer.getLong();
+
+            for (; ids != 0; ids &= ids - 1)
+            {
+                int id = (i << 6) + Long.numberOfTrailingZeros(ids);
+                if (0 == id) { throw new IllegalArgumentException("CountrySet holds the null id"); }
+
+                int o = CountryCodec.fromByteId((byte) id).ordinal();
+                w[o >>> 6] |= 1L << o;
+            }
+        }
+
+        return create(w[0], w[1], w[2], w[3]);
+    }
+
+    /**
+     * Decode the URL-safe Base64 form written by {@link #toBase64()}.
+     */
+    public static CountrySet fromBase64(CharSequence text)
+    {
+        return fromBytes(Base64.getUrlDecoder().decode(text.toString()));
+    }
+
+    private static CountrySet create(long w0, long w1, long w2, long w3)
+    {
+        if ((w0 | w1 | w2 | w3) == 0) { return NONE; }
+
+        return new CountrySet(w0, w1, w2, w3);
+    }
+
+    public boolean contains(CountryInfo ci)
+    {
+        return null != ci && containsOrdinal(ci.ordinal());
+    }
+
+    /**
+     * Same as {@code contains(CountryInfo.forOrdinal(ordinal))}, for use with
+     * the ordinals written by the bulk lookups.
+     */
+    public boolean containsOrdinal(int ordinal)
+    {
+        if (ordinal < 0 || ordinal >= WORDS * 64) { return false; }
+
+        return 0 != (word(ordinal >>> 6) & (1L << ordinal));
+    }
+
+    public boolean containsAll(CountrySet other)
+    {
+        return (other.w0 & ~w0) == 0 && (other.w1 & ~w1) == 0
+            && (other.w2 & ~w2) == 0 && (other.w3 & ~w3) == 0;
+    }
+
+    public boolean intersects(CountrySet other)
+    {
+        return ((w0 & other.w0) | (w1 & other.w1) | (w2 & other.w2) | (w3 & other.w3)) != 0;
+    }
+
+    public boolean isEmpty()
+    {
+        return (w0 | w1 | w2 | w3) == 0;
+    }
+
+    public int cardinality()
+    {
+        return Long.bitCount(w0) + Long.bitCount(w1) + Long.bitCount(w2) + Long.bitCount(w3);
+    }
+
+    /**
+     * Same as {@code intersection(other).cardinality()}, without allocating.
+     */
+    public int intersectionCardinality(CountrySet other)
+    {
+        return Long.bitCount(w0 & other.w0) + Long.bitCount(w1 & other.w1)
+             + Long.bitCount(w2 & other.w2) + Long.bitCount(w3 & other.w3);
+    }
+
+    public CountrySet union(CountrySet other)
+    {
+        if (containsAll(other)) { return this; }
+        if (other.containsAll(this)) { return other; }
+
+        return new CountrySet(w0 | other.w0, w1 | other.w1, w2 | other.w2, w3 | other.w3);
+    }
+
+    public CountrySet intersection(CountrySet other)
+    {
+        if (other.containsAll(this)) { return this; }
+        if (containsAll(other)) { return other; }
+
+        return create(w0 & other.w0, w1 & other.w1, w2 & other.w2, w3 & other.w3);
+    }
+
+    public CountrySet difference(CountrySet other)
+    {
+        if (!intersects(other)) { return this; }
+
+        return create(w0 & ~other.w0, w1 & ~other.w1, w2 & ~other.w2, w3 & ~other.w3);
+    }
+
+    /**
+     * Get the countries not in this set.
+     */
+    public CountrySet complement()
+    {
+        return ALL.difference(this);
+    }
+
+    /**
+     * Get the first ordinal in this set at or after {@code from}, or -1. Allows
+     * iterating without allocating:
+     * {@code for (int o = set.nextOrdinal(0); o >= 0; o = set.nextOrdinal(o + 1))}.
+     */
+    public int nextOrdinal(int from)
+    {
+        if (from < 0) { from = 0; }
+
+        for (int i = from >>> 6; i < WORDS; i++)
+        {
+            long w = word(i);
+            if (i == from >>> 6) { w &= -1L << from; }
+
+            if (w != 0) { return (i << 6) + Long.numberOfTrailingZeros(w); }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public Iterator<CountryInfo> iterator()
+    {
+        return new Iterator<CountryInfo>()
+        {
+            private int next = nextOrdinal(0);
+
+            @Override
+            public boolean hasNext()
+            {
+                return next >= 0;
+            }
+
+            @Override
+            public CountryInfo next()
+            {
+                if (next < 0) { throw new NoSuchElementException(); }
+
+                CountryInfo ci = CountryInfo.forOrdinal(next);
+                next = nextOrdinal(next + 1);
+
+                return ci;
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Get the binary form, {@link #BINARY_SIZE} bytes.
+     */
+    public byte[] toBytes()
+    {
+        byte[] bytes = new byte[BINARY_SIZE];
+        write(ByteBuffer.wrap(bytes));
+
+        return bytes;
+    }
+
+    /**
+     * Write the binary form at the buffer's position.
+     */
+    public void write(ByteBuffer buffer)
+    {
+        long[] ids = new long[WORDS];
+
+        for (int o = nextOrdinal(0); o >= 0; o = nextOrdinal(o + 1))
+        {
+            int id = CountryCodec.toByteId(CountryInfo.forOrdinal(o)) & 0xFF;
+            ids[id >>> 6] |= 1L << id;
+        }
+
+        buffer.putInt(CountryCodec.ID_TABLE_VERSION).putLong(ids[0]).putLong(ids[1]).putLong(ids[2]).putLong(ids[3]);
+    }
+
+    /**
+     * Get the binary form as URL-safe Base64 without padding (48 characters).
+     */
+    public String toBase64()
+    {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(toBytes());
+    }
+
+    private long word(int index)
+    {
+        switch (index)
+        {
+            case 0:		return w0;
+            case 1:		return w1;
+            case 2:		return w2;
+            default:	return w3;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) { return true; }
+        if (!(o instanceof CountrySet)) { return false; }
+
+        CountrySet other = (CountrySet) o;
+
+        return w0 == other.w0 && w1 == other.w1 && w2 == other.w2 && w3 == other.w3;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        long h = w0 * 31 + w1;
+        h = h * 31 + w2;
+        h = h * 31 + w3;
+
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Get the alpha-3 codes of the countries, e.g. "[JPN, USA]".
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder("[");
+
+        for (int o = nextOrdinal(0); o >= 0; o = nextOrdinal(o + 1))
+        {
+            if (sb.length() > 1) { sb.append(", "); }
+            sb.append(CountryInfo.forOrdinal(o).getISOa3());
+        }
+
+        return sb.append(']').toString();
+    }
+}
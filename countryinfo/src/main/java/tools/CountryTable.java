@@ -0,0 +1,420 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable column-oriented view of a whole dataset, for analytics: every
+ * attribute is a contiguous column of ints indexed by row, where row is the
+ * {@link CountryInfo} ordinal (or the record index of a
+ * {@link CountryDataset}).
+ *
+ * <pre>
+ * CountryTable t = CountryTable.{@link #fromCountryInfo()};
+ * t.{@link #write(Path) write}(Paths.get("countries.tbl"));
+ * t = CountryTable.{@link #map(Path) map}(Paths.get("countries.tbl"));
+ *
+ * <span style="color: darkgreen;">// Filter on dictionary ids, decode only for output.</span>
+ * int yes = t.{@link #findId(String) findId}("Yes");
+ * IntBuffer independent = t.{@link #column(Column) column}(CountryTable.Column.INDEPENDENT);
+ * for (int row = 0; row &lt; t.{@link #size()}; row++)
+ *     if (independent.get(row) == yes)
+ *         System.out.println(t.{@link #getString(Column, int) getString}(CountryTable.Column.NAME, row));
+ * </pre>
+ *
+ * <p>
+ * String columns hold ids into one dictionary shared by all columns: the
+ * distinct strings, sorted by their UTF-8 bytes, stored back to back in a
+ * single byte region with an array of offsets. Equal strings have equal
+ * ids in every column, so filters and joins compare ints, and the ids order
+ * like the strings. The {@link Column#ISO_NUMERIC} column holds the numeric
+ * codes themselves.
+ * </p>
+ *
+ * <p>
+ * The whole table is one little-endian buffer, laid out as a header, the
+ * columns, the dictionary offsets and the string bytes. {@link #write(Path)}
+ * writes that buffer as is, and {@link #map(Path)} maps it back without
+ * decoding anything, so a mapped table costs no heap beyond a few views.
+ * </p>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public final class CountryTable
+{
+    /**
+     * Columns, in {@link CountryDataset#CSV_HEADER} order.
+     */
+    public enum Column
+    {
+        ISO_ALPHA3, ISO_ALPHA2, CCTLD, ISO_NUMERIC, ITU, FIPS, IOC, FIFA, DS, WMO, GAUL, MARC, DIAL, NAME, INDEPENDENT;
+
+        String value(CountryAttributes c)
+        {
+            switch (this)
+            {
+                case ISO_ALPHA3: return c.getISOa3();
+                case ISO_ALPHA2: return c.getISOa2();
+                case CCTLD: return c.getCCTLD();
+                case ITU: return c.getITU();
+                case FIPS: return c.getFIPS();
+                case IOC: return c.getIOC();
+                case FIFA: return c.getFIFA();
+                case DS: return c.getDS();
+                case WMO: return c.getWMO();
+                case GAUL: return c.getGAUL();
+                case MARC: return c.getMARC();
+                case DIAL: return c.getDial();
+                case NAME: return c.getCountryName();
+                case INDEPENDENT: return c.getIndependent();
+                default: return null;
+            }
+        }
+    }
+
+    /** First four bytes of the file form ("CITB"). */
+    private static final int MAGIC = 0x43495442;
+
+    private static final short FORMAT = 1;
+
+    private static final int HEADER_SIZE = 24;
+
+    private static final Column[] COLUMNS = Column.values();
+
+    private final ByteBuffer data;
+    private final int rows;
+    private final int version;
+    private final IntBuffer[] columns = new IntBuffer[COLUMNS.length];
+    private final IntBuffer offsets;
+    private final ByteBuffer strings;
+
+    private CountryTable(ByteBuffer data)
+    {
+        this.data = data.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (data.limit() < HEADER_SIZE || data.getInt(0) != MAGIC)
+        {
+            throw new IllegalArgumentException("not a country table");
+        }
+        if (data.getShort(4) != FORMAT) { throw new IllegalArgumentException("unsupported country table format"); }
+        if (data.getShort(6) != COLUMNS.length) { throw new IllegalArgumentException("unexpected column count"); }
+
+        this.rows = data.getInt(8);
+        this.version = data.getInt(12);
+        int dictionarySize = data.getInt(16);
+        int bytes = data.getInt(20);
+
+        int offset = HEADER_SIZE;
+        for (int c = 0; c < COLUMNS.length; c++)
+        {
+            columns[c] = slice(offset, 4 * rows).asIntBuffer();
+            offset += 4 * rows;
+        }
+
+        this.offsets = slice(offset, 4 * (dictionarySize + 1)).asIntBuffer();
+        this.strings = slice(offset + 4 * (dictionarySize + 1), bytes);
+    }
+
+    /**
+     * Build the table of the {@link CountryInfo} constants; row i is the
+     * constant of ordinal i.
+     */
+    public static CountryTable fromCountryInfo()
+    {
+        return build(Arrays.<CountryAttributes>asList(CountryInfo.values()), CountryInfo.VERSION);
+    }
+
+    /**
+     * Build the table of a dataset; row i is record i.
+     */
+    public static CountryTable of(CountryDataset dataset)
+    {
+        return build(new ArrayList<CountryAttributes>(dataset.getRecords()), dataset.getVersion());
+    }
+
+    private static CountryTable build(List<CountryAttributes> items, int version)
+    {
+        // Dictionary of the distinct strings of all columns, in UTF-8 order.
+        Map<String, byte[]> distinct = new HashMap<>();
+        for (CountryAttributes item : items)
+        {
+            for (Column c : COLUMNS)
+            {
+                String s = c.value(item);
+                if (null != s && !distinct.containsKey(s)) { distinct.put(s, s.getBytes(StandardCharsets.UTF_8)); }
+            }
+        }
+
+        List<Map.Entry<String, byte[]>> sorted = new ArrayList<>(distinct.entrySet());
+        Collections.sort(sorted, new Comparator<Map.Entry<String, byte[]>>()
+        {
+            @Override
+            public int compare(Map.Entry<String, byte[]> a, Map.Entry<String, byte[]> b)
+            {
+                return compareUtf8(a.getValue(), b.getValue());
+            }
+        });
+
+        Map<String, Integer> ids = new HashMap<>();
+        int bytes = 0;
+        for (int i = 0; i < sorted.size(); i++)
+        {
+            ids.put(sorted.get(i).getKey(), i);
+            bytes += sorted.get(i).getValue().length;
+        }
+
+        int rows = items.size();
+        ByteBuffer data = ByteBuffer.allocateDirect(HEADER_SIZE + 4 * rows * COLUMNS.length + 4 * (sorted.size() + 1) + bytes)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        data.putInt(MAGIC).putShort(FORMAT).putShort((short) COLUMNS.length)
+            .putInt(rows).putInt(version).putInt(sorted.size()).putInt(bytes);
+
+        for (Column c : COLUMNS)
+        {
+            for (CountryAttributes item : items)
+            {
+                data.putInt(Column.ISO_NUMERIC == c ? item.getISONum() : ids.get(c.value(item)));
+            }
+        }
+
+        int offset = 0;
+        for (Map.Entry<String, byte[]> e : sorted)
+        {
+            data.putInt(offset);
+            offset += e.getValue().length;
+        }
+        data.putInt(offset);
+
+        for (Map.Entry<String, byte[]> e : sorted) { data.put(e.getValue()); }
+
+        data.flip();
+
+        return new CountryTable(data);
+    }
+
+    /**
+     * Map a table written by {@link #write(Path)}. The file must not change
+     * while the table is in use.
+     *
+     * @throws IOException
+     *         The file cannot be read.
+     *
+     * @throws IllegalArgumentException
+     *         The file is not a country table.
+     */
+    public static CountryTable map(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new CountryTable(data);
+        }
+    }
+
+    /**
+     * Wrap a buffer holding a table in file form, from its position to its
+     * limit.
+     *
+     * @throws IllegalArgumentException
+     *         The buffer does not hold a country table.
+     */
+    public static CountryTable wrap(ByteBuffer buffer)
+    {
+        return new CountryTable(buffer.slice());
+    }
+
+    /**
+     * Write this table to a file.
+     */
+    public void write(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            ByteBuffer all = data.duplicate();
+            all.clear();
+            while (all.hasRemaining()) { channel.write(all); }
+        }
+    }
+
+    /**
+     * Get a read-only view of the whole table in file form.
+     */
+    public ByteBuffer toByteBuffer()
+    {
+        ByteBuffer all = data.asReadOnlyBuffer();
+        all.clear();
+        return all.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Get the number of rows.
+     */
+    public int size()
+    {
+        return rows;
+    }
+
+    /**
+     * Get the version of the data the table was built from.
+     */
+    public int getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Get a column: dictionary ids for string columns, numeric codes for
+     * {@link Column#ISO_NUMERIC}. The view is read-only and indexed by row.
+     */
+    public IntBuffer column(Column column)
+    {
+        return columns[column.ordinal()].asReadOnlyBuffer();
+    }
+
+    /**
+     * Get a cell: a dictionary id, or the numeric code for
+     * {@link Column#ISO_NUMERIC}.
+     */
+    public int getInt(Column column, int row)
+    {
+        return columns[column.ordinal()].get(row);
+    }
+
+    /**
+     * Get a cell decoded to a String; for {@link Column#ISO_NUMERIC}, the
+     * code as its three digits, "004" for 4, like
+     * {@link CodeScheme#ISO_NUMERIC}. Use {@link #getInt(Column, int)} for
+     * the number.
+     */
+    public String getString(Column column, int row)
+    {
+        int value = getInt(column, row);
+
+        return Column.ISO_NUMERIC == column ? CodeScheme.numeric(value) : decode(value);
+    }
+
+    /**
+     * Get the number of distinct strings.
+     */
+    public int getDictionarySize()
+    {
+        return offsets.limit() - 1;
+    }
+
+    /**
+     * Decode a dictionary id.
+     */
+    public String decode(int id)
+    {
+        int start = offsets.get(id);
+        byte[] bytes = new byte[offsets.get(id + 1) - start];
+
+        ByteBuffer b = strings.duplicate();
+        b.position(start);
+        b.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the UTF-8 bytes of a dictionary id, as a read-only view of the
+     * shared byte region.
+     */
+    public ByteBuffer utf8(int id)
+    {
+        ByteBuffer b = strings.asReadOnlyBuffer();
+        b.limit(offsets.get(id + 1)).position(offsets.get(id));
+
+        return b.slice();
+    }
+
+    /**
+     * Find the dictionary id of a string, by binary search.
+     *
+     * @return
+     *         The id, or -1 if the string occurs in no column.
+     */
+    public int findId(String value)
+    {
+        byte[] key = value.getBytes(StandardCharsets.UTF_8);
+        int lo = 0, hi = getDictionarySize() - 1;
+
+        while (lo <= hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            int c = compareUtf8(mid, key);
+
+            if (c < 0) { lo = mid + 1; }
+            else if (c > 0) { hi = mid - 1; }
+            else { return mid; }
+        }
+
+        return -1;
+    }
+
+    private int compareUtf8(int id, byte[] key)
+    {
+        int start = offsets.get(id), end = offsets.get(id + 1);
+        int n = Math.min(end - start, key.length);
+
+        for (int i = 0; i < n; i++)
+        {
+            int c = (strings.get(start + i) & 0xFF) - (key[i] & 0xFF);
+            if (0 != c) { return c; }
+        }
+
+        return (end - start) - key.length;
+    }
+
+    private static int compareUtf8(byte[] a, byte[] b)
+    {
+        int n = Math.min(a.length, b.length);
+
+        for (int i = 0; i < n; i++)
+        {
+            int c = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (0 != c) { return c; }
+        }
+
+        return a.length - b.length;
+    }
+
+    private ByteBuffer slice(int offset, int length)
+    {
+        ByteBuffer b = data.duplicate();
+        b.limit(offset + length).position(offset);
+        return b.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable digit trie over the dial codes of all countries, for
+ * longest-prefix matching of E.164 phone numbers.
+ *
+ * <p>
+ * The trie is flattened into an {@code int} array of ten child slots per
+ * node. Dial codes such as "1-264" are indexed by their digits only, and
+ * comma-separated codes ("1-809,1-829,1-849") are indexed individually.
+ * </p>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+final class DialIndex<T extends CountryAttributes>
+{
+    private final int[] children;
+    private final List<?>[] countries;
+
+    DialIndex(List<T> items)
+    {
+        int[] next = new int[10 * 64];
+        List<List<T>> lists = new ArrayList<>();
+        lists.add(null);
+
+        for (T item : items)
+        {
+            for (String dial : item.getDial().split(","))
+            {
+                int node = 0;
+                boolean any = false;
+
+                for (int i = 0; i < dial.length(); i++)
+                {
+                    int digit = dial.charAt(i) - '0';
+                    if (digit < 0 || digit > 9) { continue; }
+
+                    int slot = node * 10 + digit;
+                    if (0 == next[slot])
+                    {
+                        next[slot] = lists.size();
+                        lists.add(null);
+
+                        if (lists.size() * 10 > next.length) { next = Arrays.copyOf(next, next.length * 2); }
+                    }
+
+                    node = next[slot];
+                    any = true;
+                }
+
+                if (!any) { continue; }
+
+                List<T> list = lists.get(node);
+                if (null == list) { lists.set(node, list = new ArrayList<>()); }
+                if (!list.contains(item)) { list.add(item); }
+            }
+        }
+
+        this.children = Arrays.copyOf(next, lists.size() * 10);
+        this.countries = new List<?>[lists.size()];
+
+        for (int i = 0; i < countries.length; i++)
+        {
+            List<T> list = lists.get(i);
+            if (null != list) { countries[i] = Collections.unmodifiableList(list); }
+        }
+    }
+
+    /**
+     * Get the countries whose dial code is the longest prefix of the given
+     * phone number.
+     *
+     * <p>
+     * A leading "+" or "00" international prefix is skipped, as are spaces
+     * and the separators {@code - . ( ) /}. Matching stops at the first other
+     * character.
+     * </p>
+     *
+     * @return
+     *         An immutable list of countries, empty if no dial code matches.
+     */
+    @SuppressWarnings("unchecked")
+    List<T> match(CharSequence number)
+    {
+        int length = number.length();
+        int i = 0;
+
+        while (i < length && number.charAt(i) == ' ') { i++; }
+
+        if (i < length && number.charAt(i) == '+')
+        {
+            i++;
+        }
+        else if (i + 1 < length && number.charAt(i) == '0' && number.charAt(i + 1) == '0')
+        {
+            i += 2;
+        }
+
+        int node = 0;
+        List<?> found = null;
+
+        for (; i < length; i++)
+        {
+            char c = number.charAt(i);
+
+            if (c >= '0' && c <= '9')
+            {
+                node = children[node * 10 + (c - '0')];
+                if (0 == node) { break; }
+
+                if (null != countries[node]) { found = countries[node]; }
+            }
+            else if (!isSeparator(c))
+            {
+                break;
+            }
+        }
+
+        return null == found ? Collections.<T>emptyList() : (List<T>) found;
+    }
+
+    private static boolean isSeparator(char c)
+    {
+        switch (c)
+        {
+            case ' ':
+            case '-':
+            case '.':
+            case '(':
+            case ')':
+            case '/':
+                return true;
+        }
+
+        return false;
+    }
+}
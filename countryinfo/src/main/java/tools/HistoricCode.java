@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An ISO 3166-1 code as assigned over a period of time: current codes, and
+ * codes since retired or reassigned, such as "ANT" (Netherlands Antilles,
+ * until 2010-12-15) or "CS" (Czechoslovakia until 1993, then Serbia and
+ * Montenegro from 2003 to 2006). See {@link CodeHistory}.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public final class HistoricCode
+{
+    private final CodeScheme scheme;
+    private final String code;
+    private final String name;
+    private final LocalDate validFrom;
+    private final LocalDate validTo;
+    private final CountryInfo country;
+    private final List<CountryInfo> successors;
+
+    HistoricCode(CodeScheme scheme, String code, String name, LocalDate validFrom, LocalDate validTo,
+                 CountryInfo country, List<CountryInfo> successors)
+    {
+        this.scheme = scheme;
+        this.code = code;
+        this.name = name;
+        this.validFrom = validFrom;
+        this.validTo = validTo;
+        this.country = country;
+        this.successors = Collections.unmodifiableList(successors);
+    }
+
+    /**
+     * Get the scheme: {@link CodeScheme#ISO_ALPHA2},
+     * {@link CodeScheme#ISO_ALPHA3} or {@link CodeScheme#ISO_NUMERIC}.
+     */
+    public CodeScheme getScheme()  { return scheme; }
+
+    /** Get the code, e.g. "ANT", or "530" for a numeric code. */
+    public String getCode()        { return code; }
+
+    /** Get the name of the country the code stood for. */
+    public String getName()        { return name; }
+
+    /** Get the first day of validity, or null if not recorded. */
+    public LocalDate getValidFrom() { return validFrom; }
+
+    /** Get the day the code stopped being valid, or null if it is current. */
+    public LocalDate getValidTo()  { return validTo; }
+
+    /**
+     * Get the current country that is the same country the code stood for,
+     * possibly under another code (e.g. COD for "ZAR"), or null if that
+     * country has been dissolved.
+     */
+    public CountryInfo getCountry() { return country; }
+
+    /**
+     * Get the current countries that records using this code should be
+     * migrated to: the country itself if it still exists, else those that
+     * replaced it (e.g. BES, CUW and SXM for "ANT").
+     */
+    public List<CountryInfo> getSuccessors() { return successors; }
+
+    public boolean isCurrent()     { return null == validTo; }
+
+    /**
+     * Check whether the code was valid on the given day.
+     */
+    public boolean isValidOn(LocalDate date)
+    {
+        return (null == validFrom || !date.isBefore(validFrom)) && (null == validTo || date.isBefore(validTo));
+    }
+
+    @Override
+    public String toString()
+    {
+        return code + " (" + name + ", " + (null == validFrom ? "" : validFrom.toString()) + ".."
+                + (null == validTo ? "" : validTo.toString()) + ")";
+    }
+}
@@ -0,0 +1,681 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable table of IP address ranges to countries.
+ *
+ * <pre>
+ * IpRangeTable table = IpRangeTable.{@link #readCsv(Reader) readCsv}(reader);
+ * table.{@link #write(Path) write}(Paths.get("ip-country.bin"));
+ *
+ * <span style="color: darkgreen;">// Later, or in another process: maps the file, no parsing.</span>
+ * IpRangeTable mapped = IpRangeTable.{@link #map(Path) map}(Paths.get("ip-country.bin"));
+ * CountryInfo ci = mapped.{@link #forAddress(CharSequence) forAddress}("81.2.69.160");
+ * </pre>
+ *
+ * <p>
+ * IPv4 ranges are kept as arrays of start and end addresses (ints), IPv6
+ * ranges as arrays of high and low halves (longs), each with an array of the
+ * stable 1-byte country ids of {@link CountryCodec}. The arrays are in
+ * Eytzinger order (the breadth-first order of a balanced search tree), so
+ * that a lookup, a search for the last range starting at or before the
+ * address, touches few cache lines and does not mispredict branches. It
+ * never allocates. Addresses are compared as unsigned numbers.
+ * IPv4-mapped IPv6 addresses (::ffff:a.b.c.d) are looked up in the IPv4
+ * ranges.
+ * </p>
+ *
+ * <p>
+ * The binary form written by {@link #write(Path)} holds the same arrays,
+ * little-endian, so {@link #map(Path)} only maps the file and searches it in
+ * place.
+ * </p>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public final class IpRangeTable
+{
+    /** First four bytes of the binary form ("CIIP"). */
+    private static final int MAGIC = 0x43494950;
+
+    private static final short FORMAT = 1;
+
+    private static final int HEADER_SIZE = 24;
+
+    private final IntBuffer v4Start;
+    private final IntBuffer v4End;
+    private final ByteBuffer v4Id;
+    private final LongBuffer v6StartHi;
+    private final LongBuffer v6StartLo;
+    private final LongBuffer v6EndHi;
+    private final LongBuffer v6EndLo;
+    private final ByteBuffer v6Id;
+    private final int v4Count;
+    private final int v6Count;
+    private final int skipped;
+
+    private IpRangeTable(ByteBuffer data, int skipped)
+    {
+        data.order(ByteOrder.LITTLE_ENDIAN).position(0);
+
+        if (data.remaining() < HEADER_SIZE || data.getInt() != MAGIC)
+        {
+            throw new IllegalArgumentException("not an IP range table");
+        }
+        if (data.getShort() != FORMAT) { throw new IllegalArgumentException("unsupported IP range table format"); }
+
+        data.getShort();
+        CountryCodec.checkVersion(data.getInt());
+        this.v4Count = data.getInt();
+        this.v6Count = data.getInt();
+        this.skipped = skipped;
+
+        int offset = HEADER_SIZE;
+        this.v6StartHi = slice(data, offset, 8 * v6Count).asLongBuffer(); offset += 8 * v6Count;
+        this.v6StartLo = slice(data, offset, 8 * v6Count).asLongBuffer(); offset += 8 * v6Count;
+        this.v6EndHi = slice(data, offset, 8 * v6Count).asLongBuffer();   offset += 8 * v6Count;
+        this.v6EndLo = slice(data, offset, 8 * v6Count).asLongBuffer();   offset += 8 * v6Count;
+        this.v4Start = slice(data, offset, 4 * v4Count).asIntBuffer();    offset += 4 * v4Count;
+        this.v4End = slice(data, offset, 4 * v4Count).asIntBuffer();      offset += 4 * v4Count;
+        this.v4Id = slice(data, offset, v4Count);                         offset += v4Count;
+        this.v6Id = slice(data, offset, v6Count);
+    }
+
+    /**
+     * Map a table written by {@link #write(Path)}. The file must not change
+     * while the table is in use.
+     *
+     * @throws IOException
+     *         The file cannot be read.
+     *
+     * @throws IllegalArgumentException
+     *         The file is not an IP range table.
+     */
+    public static IpRangeTable map(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new IpRangeTable(data, 0);
+        }
+    }
+
+    /**
+     * Write this table in binary form.
+     */
+    public void write(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            ByteBuffer data = ByteBuffer.allocate(HEADER_SIZE + 33 * v6Count + 9 * v4Count).order(ByteOrder.LITTLE_ENDIAN);
+            header(data, v4Count, v6Count);
+
+            for (int i = 0; i < v6Count; i++) { data.putLong(v6StartHi.get(i)); }
+            for (int i = 0; i < v6Count; i++) { data.putLong(v6StartLo.get(i)); }
+            for (int i = 0; i < v6Count; i++) { data.putLong(v6EndHi.get(i)); }
+            for (int i = 0; i < v6Count; i++) { data.putLong(v6EndLo.get(i)); }
+            for (int i = 0; i < v4Count; i++) { data.putInt(v4Start.get(i)); }
+            for (int i = 0; i < v4Count; i++) { data.putInt(v4End.get(i)); }
+            for (int i = 0; i < v4Count; i++) { data.put(v4Id.get(i)); }
+            for (int i = 0; i < v6Count; i++) { data.put(v6Id.get(i)); }
+
+            data.flip();
+            while (data.hasRemaining()) { channel.write(data); }
+        }
+    }
+
+    /**
+     * Read a table from CSV lines of the form {@code start,end,country}.
+     *
+     * <p>
+     * Start and end are inclusive IPv4 or IPv6 addresses in text form, or
+     * IPv4 addresses as unsigned decimal numbers; the country is an ISO
+     * 3166-1 alpha-2 or alpha-3 code. Fields may be double-quoted, further
+     * fields are ignored, and lines that are empty or start with "#" are
+     * skipped. Rows whose country is not a known code (for example "EU" or
+     * "-") are skipped and counted by {@link #getSkippedRows()}. IPv6 rows
+     * within the IPv4-mapped block ::ffff:0:0/96 are stored as IPv4 ranges,
+     * which is where lookups of mapped addresses search.
+     * </p>
+     *
+     * @throws IOException
+     *         Reading failed.
+     *
+     * @throws IllegalArgumentException
+     *         A line is malformed, ranges overlap, or an IPv6 range is
+     *         partly inside the IPv4-mapped block.
+     */
+    public static IpRangeTable readCsv(Reader in) throws IOException
+    {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        List<long[]> v4 = new ArrayList<>();
+        List<long[]> v6 = new ArrayList<>();
+        long[] address = new long[2];
+        int skipped = 0;
+        int lineNumber = 0;
+
+        for (String line; null != (line = reader.readLine()); )
+        {
+            lineNumber++;
+
+            if (line.trim().isEmpty() || line.startsWith("#")) { continue; }
+
+            String[] f = line.split(",", 4);
+            if (f.length < 3) { throw new IllegalArgumentException("line " + lineNumber + ": expected start,end,country"); }
+
+            CountryInfo ci = CountryInfo.lookupCode(unquote(f[2]).length() == 2 ? CodeScheme.ISO_ALPHA2 : CodeScheme.ISO_ALPHA3, unquote(f[2]));
+            if (null == ci)
+            {
+                skipped++;
+                continue;
+            }
+
+            int startKind = parse(unquote(f[0]), address);
+            long startHi = address[0], startLo = address[1];
+            int endKind = parse(unquote(f[1]), address);
+
+            if (0 == startKind || startKind != endKind)
+            {
+                throw new IllegalArgumentException("line " + lineNumber + ": invalid address range " + f[0] + "," + f[1]);
+            }
+
+            if (6 == startKind && (mapped(startHi, startLo) || mapped(address[0], address[1])))
+            {
+                if (!mapped(startHi, startLo) || !mapped(address[0], address[1]))
+                {
+                    throw new IllegalArgumentException("line " + lineNumber + ": range " + f[0] + "," + f[1]
+                            + " is partly inside ::ffff:0:0/96");
+                }
+
+                startKind = 4;
+                startLo &= 0xFFFFFFFFL;
+                address[1] &= 0xFFFFFFFFL;
+            }
+
+            if (4 == startKind)
+            {
+                v4.add(new long[] { startLo, address[1], CountryCodec.toByteId(ci) });
+            }
+            else
+            {
+                v6.add(new long[] { startHi, startLo, address[0], address[1], CountryCodec.toByteId(ci) });
+            }
+        }
+
+        return build(v4, v6, skipped);
+    }
+
+    private static IpRangeTable build(List<long[]> v4, List<long[]> v6, int skipped)
+    {
+        Collections.sort(v4, new Comparator<long[]>()
+        {
+            @Override
+            public int compare(long[] a, long[] b) { return Long.compare(a[0], b[0]); }
+        });
+
+        Collections.sort(v6, new Comparator<long[]>()
+        {
+            @Override
+            public int compare(long[] a, long[] b)
+            {
+                int c = Long.compare(a[0] ^ Long.MIN_VALUE, b[0] ^ Long.MIN_VALUE);
+                return 0 != c ? c : Long.compare(a[1] ^ Long.MIN_VALUE, b[1] ^ Long.MIN_VALUE);
+            }
+        });
+
+        ByteBuffer data = ByteBuffer.allocate(HEADER_SIZE + 33 * v6.size() + 9 * v4.size()).order(ByteOrder.LITTLE_ENDIAN);
+        header(data, v4.size(), v6.size());
+
+        int base = data.position();
+        int n6 = v6.size(), n4 = v4.size();
+
+        for (int i = 0; i < n6; i++)
+        {
+            long[] r = v6.get(i);
+
+            if (below(r[2], r[3], r[0], r[1]))
+            {
+                throw new IllegalArgumentException("IPv6 range ends before it starts: " + format6(r[0], r[1]));
+            }
+            if (i > 0 && !below(v6.get(i - 1)[2], v6.get(i - 1)[3], r[0], r[1]))
+            {
+                throw new IllegalArgumentException("overlapping IPv6 ranges at " + format6(r[0], r[1]));
+            }
+        }
+
+        int[] order = eytzinger(n6);
+
+        for (int i = 0; i < n6; i++)
+        {
+            long[] r = v6.get(order[i]);
+
+            data.putLong(base + 8 * i, r[0]);
+            data.putLong(base + 8 * (n6 + i), r[1]);
+            data.putLong(base + 8 * (2 * n6 + i), r[2]);
+            data.putLong(base + 8 * (3 * n6 + i), r[3]);
+            data.put(base + 32 * n6 + 9 * n4 + i, (byte) r[4]);
+        }
+
+        base += 32 * n6;
+
+        for (int i = 0; i < n4; i++)
+        {
+            long[] r = v4.get(i);
+
+            if (r[1] < r[0]) { throw new IllegalArgumentException("IPv4 range ends before it starts: " + format4((int) r[0])); }
+            if (i > 0 && v4.get(i - 1)[1] >= r[0])
+            {
+                throw new IllegalArgumentException("overlapping IPv4 ranges at " + format4((int) r[0]));
+            }
+        }
+
+        order = eytzinger(n4);
+
+        for (int i = 0; i < n4; i++)
+        {
+            long[] r = v4.get(order[i]);
+
+            data.putInt(base + 4 * i, (int) r[0]);
+            data.putInt(base + 4 * (n4 + i), (int) r[1]);
+            data.put(base + 8 * n4 + i, (byte) r[2]);
+        }
+
+        return new IpRangeTable(data, skipped);
+    }
+
+    /**
+     * Get the sorted index to store at each slot of the Eytzinger layout:
+     * slot k - 1 holds node k of a complete binary search tree, whose
+     * children are nodes 2k and 2k + 1.
+     */
+    private static int[] eytzinger(int n)
+    {
+        int[] order = new int[n];
+        fill(order, 1, 0);
+        return order;
+    }
+
+    private static int fill(int[] order, int node, int next)
+    {
+        if (node > order.length) { return next; }
+
+        next = fill(order, 2 * node, next);
+        order[node - 1] = next++;
+
+        return fill(order, 2 * node + 1, next);
+    }
+
+    /**
+     * Get the number of IPv4 ranges.
+     */
+    public int getIPv4RangeCount()
+    {
+        return v4Count;
+    }
+
+    /**
+     * Get the number of IPv6 ranges.
+     */
+    public int getIPv6RangeCount()
+    {
+        return v6Count;
+    }
+
+    /**
+     * Get the number of CSV rows skipped for an unknown country; 0 for a
+     * mapped table.
+     */
+    public int getSkippedRows()
+    {
+        return skipped;
+    }
+
+    /**
+     * Get the country of an IPv4 address.
+     *
+     * @param address
+     *         The address, most significant byte first, e.g. 0x7F000001 for
+     *         127.0.0.1.
+     *
+     * @return
+     *         The country, or null if the address is in no range.
+     */
+    public CountryInfo forIPv4(int address)
+    {
+        int key = address ^ Integer.MIN_VALUE;
+        int node = 1;
+
+        while (node <= v4Count)
+        {
+            node = 2 * node + ((v4Start.get(node - 1) ^ Integer.MIN_VALUE) <= key ? 1 : 0);
+        }
+
+        // The last right turn was at the last range starting at or before
+        // the address; none if the search only went left.
+        node >>>= Integer.numberOfTrailingZeros(node) + 1;
+
+        if (0 == node || (v4End.get(node - 1) ^ Integer.MIN_VALUE) < key) { return null; }
+
+        return CountryCodec.fromByteId(v4Id.get(node - 1));
+    }
+
+    /**
+     * Get the country of an IPv6 address, given as its two 64-bit halves.
+     * IPv4-mapped addresses are looked up as IPv4.
+     *
+     * @return
+     *         The country, or null if the address is in no range.
+     */
+    public CountryInfo forIPv6(long high, long low)
+    {
+        if (mapped(high, low)) { return forIPv4((int) low); }
+
+        int node = 1;
+
+        while (node <= v6Count)
+        {
+            node = 2 * node + (below(high, low, v6StartHi.get(node - 1), v6StartLo.get(node - 1)) ? 0 : 1);
+        }
+
+        node >>>= Integer.numberOfTrailingZeros(node) + 1;
+
+        if (0 == node || below(v6EndHi.get(node - 1), v6EndLo.get(node - 1), high, low)) { return null; }
+
+        return CountryCodec.fromByteId(v6Id.get(node - 1));
+    }
+
+    /**
+     * Get the country of an address given as 4 or 16 bytes, as returned by
+     * {@link InetAddress#getAddress()}.
+     *
+     * @return
+     *         The country, or null if the address is in no range or the
+     *         array has another length.
+     */
+    public CountryInfo forAddress(byte[] address)
+    {
+        if (4 == address.length)
+        {
+            return forIPv4((address[0] & 0xFF) << 24 | (address[1] & 0xFF) << 16
+                    | (address[2] & 0xFF) << 8 | (address[3] & 0xFF));
+        }
+
+        if (16 == address.length)
+        {
+            long high = 0, low = 0;
+            for (int i = 0; i < 8; i++) { high = high << 8 | (address[i] & 0xFF); }
+            for (int i = 8; i < 16; i++) { low = low << 8 | (address[i] & 0xFF); }
+
+            return forIPv6(high, low);
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the country of an address. Note that
+     * {@link InetAddress#getAddress()} copies the address; use
+     * {@link #forIPv4(int)} or {@link #forIPv6(long, long)} on hot paths.
+     */
+    public CountryInfo forAddress(InetAddress address)
+    {
+        if (address instanceof Inet4Address || address instanceof Inet6Address) { return forAddress(address.getAddress()); }
+
+        return null;
+    }
+
+    /**
+     * Get the country of an IPv4 or IPv6 address in text form, e.g.
+     * "81.2.69.160" or "2a02:26f0::1". Does not allocate.
+     *
+     * @return
+     *         The country, or null if the text is not an address or the
+     *         address is in no range.
+     */
+    public CountryInfo forAddress(CharSequence address)
+    {
+        if (null == address) { return null; }
+
+        int end = address.length();
+
+        for (int i = 0; i < end; i++)
+        {
+            if (address.charAt(i) == ':')
+            {
+                if (0 == parseIPv6(address, 0, end, VALID)) { return null; }
+
+                return forIPv6(parseIPv6(address, 0, end, HIGH), parseIPv6(address, 0, end, LOW));
+            }
+        }
+
+        long v4 = parseIPv4(address, 0, end);
+
+        return v4 < 0 ? null : forIPv4((int) v4);
+    }
+
+    // What parseIPv6 returns.
+    private static final int HIGH = 0, LOW = 1, VALID = 2;
+
+    /**
+     * Parse an IPv4 address, dotted-quad or an unsigned decimal number.
+     * Returns -1 if it is neither.
+     */
+    static long parseIPv4(CharSequence s, int start, int end)
+    {
+        long value = 0, part = -1;
+        int dots = 0, digits = 0;
+
+        for (int i = start; i < end; i++)
+        {
+            char c = s.charAt(i);
+
+            if (c >= '0' && c <= '9')
+            {
+                part = (part < 0 ? 0 : part * 10) + (c - '0');
+                if (++digits > 10) { return -1; }
+            }
+            else if (c == '.' && part >= 0 && part <= 255 && dots < 3)
+            {
+                value = value << 8 | part;
+                part = -1;
+                digits = 0;
+                dots++;
+            }
+            else
+            {
+                return -1;
+            }
+        }
+
+        if (part < 0) { return -1; }
+
+        if (0 == dots) { return part <= 0xFFFFFFFFL ? part : -1; }
+
+        return 3 == dots && part <= 255 ? value << 8 | part : -1;
+    }
+
+    /**
+     * Parse an IPv6 address, with "::" compression and an optional dotted
+     * IPv4 tail, without allocating. Returns the {@link #HIGH} or
+     * {@link #LOW} half, or for {@link #VALID} 1 if the text is an address
+     * and 0 if not; a half of malformed text is meaningless.
+     */
+    private static long parseIPv6(CharSequence s, int start, int end, int part)
+    {
+        long leftHi = 0, leftLo = 0, rightHi = 0, rightLo = 0;
+        int leftGroups = 0, rightGroups = 0;
+        boolean compressed = false;
+        int i = start;
+
+        if (end - start >= 2 && s.charAt(i) == ':' && s.charAt(i + 1) == ':')
+        {
+            compressed = true;
+            i += 2;
+        }
+
+        while (i < end)
+        {
+            int groupStart = i;
+            int group = 0;
+
+            while (i < end && i - groupStart < 5)
+            {
+                int digit = Character.digit(s.charAt(i), 16);
+                if (digit < 0) { break; }
+                group = group << 4 | digit;
+                i++;
+            }
+
+            if (i < end && s.charAt(i) == '.')
+            {
+                // Dotted IPv4 tail: the last two groups.
+                long v4 = parseIPv4(s, groupStart, end);
+                if (v4 < 0) { return 0; }
+
+                for (int k = 0; k < 2; k++)
+                {
+                    int g = (int) (v4 >>> (16 - 16 * k)) & 0xFFFF;
+                    if (compressed) { rightHi = rightHi << 16 | rightLo >>> 48; rightLo = rightLo << 16 | g; rightGroups++; }
+                    else { leftHi = leftHi << 16 | leftLo >>> 48; leftLo = leftLo << 16 | g; leftGroups++; }
+                }
+
+                i = end;
+                break;
+            }
+
+            if (i == groupStart || i - groupStart > 4) { return 0; }
+
+            if (compressed) { rightHi = rightHi << 16 | rightLo >>> 48; rightLo = rightLo << 16 | group; rightGroups++; }
+            else { leftHi = leftHi << 16 | leftLo >>> 48; leftLo = leftLo << 16 | group; leftGroups++; }
+
+            if (i == end) { break; }
+            if (s.charAt(i) != ':') { return 0; }
+            i++;
+
+            if (i < end && s.charAt(i) == ':')
+            {
+                if (compressed) { return 0; }
+                compressed = true;
+                i++;
+            }
+            else if (i == end)
+            {
+                return 0;
+            }
+        }
+
+        int groups = leftGroups + rightGroups;
+        if (compressed ? groups > 7 : groups != 8) { return 0; }
+
+        // Shift the groups before "::" into place above those after it.
+        for (int k = leftGroups; k < 8; k++) { leftHi = leftHi << 16 | leftLo >>> 48; leftLo <<= 16; }
+
+        switch (part)
+        {
+            case HIGH:	return leftHi | rightHi;
+            case LOW:	return leftLo | rightLo;
+            default:	return 1;
+        }
+    }
+
+    /** Whether 128-bit unsigned (aHi, aLo) is below (bHi, bLo). */
+    private static boolean below(long aHi, long aLo, long bHi, long bLo)
+    {
+        return aHi != bHi ? (aHi ^ Long.MIN_VALUE) < (bHi ^ Long.MIN_VALUE)
+                          : (aLo ^ Long.MIN_VALUE) < (bLo ^ Long.MIN_VALUE);
+    }
+
+    /** Whether (hi, lo) is an IPv4-mapped address, ::ffff:a.b.c.d. */
+    private static boolean mapped(long hi, long lo)
+    {
+        return 0 == hi && 0xFFFF == (lo >>> 32);
+    }
+
+    private static ByteBuffer slice(ByteBuffer data, int offset, int length)
+    {
+        ByteBuffer b = data.duplicate();
+        b.position(offset).limit(offset + length);
+        return b.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void header(ByteBuffer data, int v4, int v6)
+    {
+        data.putInt(MAGIC).putShort(FORMAT).putShort((short) 0)
+            .putInt(CountryCodec.ID_TABLE_VERSION).putInt(v4).putInt(v6).putInt(0);
+    }
+
+    private static String unquote(String field)
+    {
+        String f = field.trim();
+        return f.length() >= 2 && f.charAt(0) == '"' && f.charAt(f.length() - 1) == '"' ? f.substring(1, f.length() - 1) : f;
+    }
+
+    /**
+     * Parse an address into {hi, lo}; returns 4 or 6, or 0 if malformed.
+     */
+    private static int parse(String text, long[] address)
+    {
+        if (text.indexOf(':') >= 0)
+        {
+            if (0 == parseIPv6(text, 0, text.length(), VALID)) { return 0; }
+
+            address[0] = parseIPv6(text, 0, text.length(), HIGH);
+            address[1] = parseIPv6(text, 0, text.length(), LOW);
+            return 6;
+        }
+
+        long v4 = parseIPv4(text, 0, text.length());
+        if (v4 < 0) { return 0; }
+
+        address[0] = 0;
+        address[1] = v4;
+        return 4;
+    }
+
+    private static String format4(int a)
+    {
+        return (a >>> 24) + "." + (a >>> 16 & 0xFF) + "." + (a >>> 8 & 0xFF) + "." + (a & 0xFF);
+    }
+
+    private static String format6(long hi, long lo)
+    {
+        return String.format("%04x:%04x:%04x:%04x:%04x:%04x:%04x:%04x",
+                hi >>> 48, hi >>> 32 & 0xFFFF, hi >>> 16 & 0xFFFF, hi & 0xFFFF,
+                lo >>> 48, lo >>> 32 & 0xFFFF, lo >>> 16 & 0xFFFF, lo & 0xFFFF);
+    }
+}
@@ -0,0 +1,501 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.ObjectName;
+
+/**
+ * Opt-in instrumentation of the {@link CountryInfo} lookup methods: hit and
+ * miss counts per method and code scheme, and the most frequent invalid
+ * inputs.
+ *
+ * <pre>
+ * <span style="color: darkgreen;">// Start the JVM with -Dcountryinfo.stats=true, then:</span>
+ * LookupStats.Snapshot s = LookupStats.{@link #snapshot()};
+ * s.{@link Snapshot#getMisses(Method, CodeScheme) getMisses}(LookupStats.Method.FOR_CODE, CodeScheme.IOC);
+ * for (LookupStats.InvalidInput in : s.{@link Snapshot#getTopInvalid()})
+ *     System.out.println(in);         <span style="color: darkgreen;">// "1742 FOR_ISO/ISO_ALPHA3 UK"</span>
+ * </pre>
+ *
+ * <p>
+ * Instrumentation is controlled by the system property
+ * {@code countryinfo.stats}, read once into the constant {@link #ENABLED}:
+ * when it is off, the lookup methods test a static final false and the JIT
+ * removes the recording code entirely. When it is on, the statistics are
+ * also registered with the platform MBean server as {@value #OBJECT_NAME}
+ * (see {@link LookupStatsMXBean}).
+ * </p>
+ *
+ * <p>
+ * Recording does not contend across threads: each thread counts into its own
+ * counters and its own
+ * <a href="http://www.cs.ucsb.edu/research/tech_reports/reports/2005-23.pdf"
+ * >Space-Saving</a> sketch of invalid inputs, which keeps the
+ * {@code countryinfo.stats.topK} (default 32) most frequent values with
+ * counts that overestimate by at most {@link InvalidInput#getError()}.
+ * A snapshot sums the threads, including those that have ended; counts
+ * written concurrently with a snapshot may or may not be included.
+ * {@link #reset()} never writes into the counters of other threads, which
+ * only their owner updates: it records the current totals as a baseline that
+ * later snapshots subtract, so no increment racing a reset is lost.
+ * </p>
+ *
+ * <p>
+ * Only calls from application code are counted. The library's own lookups
+ * ({@link CountrySet#parse(CharSequence)}, {@link BulkResolver},
+ * {@link CodeTranslator}, {@link Resolver} and the like) go through
+ * unrecorded paths, so one call is never counted under several methods.
+ * </p>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public final class LookupStats
+{
+    /** Whether lookups are instrumented, from {@code -Dcountryinfo.stats}. */
+    public static final boolean ENABLED = Boolean.getBoolean("countryinfo.stats");
+
+    /** JMX object name of the statistics MBean. */
+    public static final String OBJECT_NAME = "tools:type=CountryInfoLookupStats";
+
+    static final int TOP_K = Math.max(1, Integer.getInteger("countryinfo.stats.topK", 32));
+
+    /** Longest invalid input kept by the sketch; longer ones are cut. */
+    static final int MAX_INPUT_LENGTH = 32;
+
+    /**
+     * Instrumented lookup methods.
+     */
+    public enum Method
+    {
+        FOR_ISO, TRY_FOR_ISO, FOR_CODE, TRY_FOR_CODE, ALL_FOR_CODE, FOR_PHONE_NUMBER,
+        FOR_HOSTNAME, TRY_FOR_HOSTNAME, FOR_HOSTNAMES, FOR_NAME, TRY_FOR_NAME, SEARCH_BY_NAME, RESOLVE
+    }
+
+    // Counters are indexed by method and scheme; slot 0 of each method is
+    // "no scheme".
+    private static final int SCHEMES = CodeScheme.values().length + 1;
+    private static final int SLOTS = Method.values().length * SCHEMES;
+
+    private static final CopyOnWriteArrayList<Recorder> recorders = new CopyOnWriteArrayList<>();
+
+    // Totals of threads that have ended, folded in by snapshot(). Its lock
+    // also guards the baseline and every reading of the counters.
+    private static final Recorder retired = new Recorder(null, true);
+
+    // Totals at the last reset(), subtracted from every snapshot.
+    private static long[] baselineHits = new long[SLOTS];
+    private static long[] baselineMisses = new long[SLOTS];
+
+    private static final ThreadLocal<Recorder> local = new ThreadLocal<Recorder>()
+    {
+        @Override
+        protected Recorder initialValue()
+        {
+            Recorder r = new Recorder(Thread.currentThread(), true);
+            recorders.add(r);
+            return r;
+        }
+    };
+
+    static
+    {
+        if (ENABLED)
+        {
+            try
+            {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+            }
+            catch (Exception e)
+            {
+                // Already registered by another class loader, or no JMX:
+                // the snapshot API still works.
+            }
+        }
+    }
+
+    private LookupStats()
+    {
+    }
+
+    static void record(Method method, CodeScheme scheme, boolean hit, CharSequence input)
+    {
+        record(method, scheme, hit, input, 0, null == input ? 0 : input.length());
+    }
+
+    static void record(Method method, CodeScheme scheme, boolean hit, CharSequence input, int start, int end)
+    {
+        Recorder r = local.get();
+        int slot = slot(method, scheme);
+
+        if (hit)
+        {
+            r.hits.lazySet(slot, r.hits.get(slot) + 1);
+            return;
+        }
+
+        r.misses.lazySet(slot, r.misses.get(slot) + 1);
+
+        String value = null == input ? "null"
+                : input.subSequence(start, Math.min(end, start + MAX_INPUT_LENGTH)).toString();
+
+        synchronized (r)
+        {
+            r.offer(slot, value, 1, 0);
+        }
+    }
+
+    static void record(Method method, CodeScheme scheme, boolean hit, int input)
+    {
+        record(method, scheme, hit, hit ? null : String.valueOf(input));
+    }
+
+    /**
+     * Get the counts and invalid inputs recorded so far. Empty when
+     * instrumentation is disabled.
+     */
+    public static Snapshot snapshot()
+    {
+        long[] hits = new long[SLOTS];
+        long[] misses = new long[SLOTS];
+        Recorder merged = new Recorder(null, false);
+
+        synchronized (retired)
+        {
+            totals(hits, misses, merged);
+
+            for (int i = 0; i < SLOTS; i++)
+            {
+                hits[i] -= baselineHits[i];
+                misses[i] -= baselineMisses[i];
+            }
+        }
+
+        List<InvalidInput> top = new ArrayList<>();
+        for (Map.Entry<Key, long[]> e : merged.sketch.entrySet())
+        {
+            Key k = e.getKey();
+            top.add(new InvalidInput(source(k.slot), k.value, e.getValue()[0], e.getValue()[1]));
+        }
+
+        Collections.sort(top, new Comparator<InvalidInput>()
+        {
+            @Override
+            public int compare(InvalidInput a, InvalidInput b)
+            {
+                return Long.compare(b.count, a.count);
+            }
+        });
+
+        return new Snapshot(hits, misses, top.subList(0, Math.min(TOP_K, top.size())));
+    }
+
+    /**
+     * Clear all counters and the invalid input sketch.
+     */
+    public static void reset()
+    {
+        long[] hits = new long[SLOTS];
+        long[] misses = new long[SLOTS];
+
+        synchronized (retired)
+        {
+            totals(hits, misses, new Recorder(null, false));
+            baselineHits = hits;
+            baselineMisses = misses;
+
+            // The sketches are guarded by their recorder's lock, so they can
+            // be cleared in place.
+            retired.clearSketch();
+            for (Recorder r : recorders) { r.clearSketch(); }
+        }
+    }
+
+    /**
+     * Sum the counters and sketches of all threads, live and ended. Must hold
+     * the lock of {@code retired}.
+     */
+    private static void totals(long[] hits, long[] misses, Recorder sketch)
+    {
+        retire();
+        add(retired, hits, misses, sketch);
+
+        for (Recorder r : recorders) { add(r, hits, misses, sketch); }
+    }
+
+    private static void retire()
+    {
+        for (Recorder r : recorders)
+        {
+            Thread owner = r.owner.get();
+            if (null != owner && owner.isAlive()) { continue; }
+
+            add(r, retired.hits, retired.misses, retired);
+            recorders.remove(r);
+        }
+    }
+
+    private static void add(Recorder r, long[] hits, long[] misses, Recorder sketch)
+    {
+        for (int i = 0; i < SLOTS; i++)
+        {
+            hits[i] += r.hits.get(i);
+            misses[i] += r.misses.get(i);
+        }
+
+        synchronized (r)
+        {
+            for (Map.Entry<Key, long[]> e : r.sketch.entrySet())
+            {
+                sketch.offer(e.getKey().slot, e.getKey().value, e.getValue()[0], e.getValue()[1]);
+            }
+        }
+    }
+
+    private static void add(Recorder r, AtomicLongArray hits, AtomicLongArray misses, Recorder sketch)
+    {
+        long[] h = new long[SLOTS];
+        long[] m = new long[SLOTS];
+        add(r, h, m, sketch);
+
+        for (int i = 0; i < SLOTS; i++)
+        {
+            hits.addAndGet(i, h[i]);
+            misses.addAndGet(i, m[i]);
+        }
+    }
+
+    private static int slot(Method method, CodeScheme scheme)
+    {
+        return method.ordinal() * SCHEMES + (null == scheme ? 0 : scheme.ordinal() + 1);
+    }
+
+    private static String source(int slot)
+    {
+        Method method = Method.values()[slot / SCHEMES];
+        int scheme = slot % SCHEMES;
+
+        return 0 == scheme ? method.name() : method + "/" + CodeScheme.values()[scheme - 1];
+    }
+
+    /**
+     * Counts of one thread, or merged counts. The counters are written by
+     * their owner thread only; the sketch is guarded by the recorder's lock.
+     */
+    private static final class Recorder
+    {
+        final WeakReference<Thread> owner;
+        final boolean bounded;
+        final AtomicLongArray hits = new AtomicLongArray(SLOTS);
+        final AtomicLongArray misses = new AtomicLongArray(SLOTS);
+
+        // Space-Saving: at most TOP_K monitored values when bounded, each
+        // with {count, error}.
+        final Map<Key, long[]> sketch = new HashMap<>();
+
+        Recorder(Thread owner, boolean bounded)
+        {
+            this.owner = new WeakReference<>(owner);
+            this.bounded = bounded;
+        }
+
+        void offer(int slot, String value, long count, long error)
+        {
+            Key key = new Key(slot, value);
+            long[] entry = sketch.get(key);
+
+            if (null != entry)
+            {
+                entry[0] += count;
+                entry[1] += error;
+                return;
+            }
+
+            // A full sketch replaces its least frequent value, and the new
+            // value inherits that count as its error bound.
+            if (bounded && sketch.size() >= TOP_K)
+            {
+                Map.Entry<Key, long[]> min = null;
+                for (Map.Entry<Key, long[]> e : sketch.entrySet())
+                {
+                    if (null == min || e.getValue()[0] < min.getValue()[0]) { min = e; }
+                }
+
+                sketch.remove(min.getKey());
+                count += min.getValue()[0];
+                error += min.getValue()[0];
+            }
+
+            sketch.put(key, new long[] { count, error });
+        }
+
+        synchronized void clearSketch()
+        {
+            sketch.clear();
+        }
+    }
+
+    private static final class Key
+    {
+        final int slot;
+        final String value;
+
+        Key(int slot, String value)
+        {
+            this.slot = slot;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            return o instanceof Key && ((Key) o).slot == slot && ((Key) o).value.equals(value);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return slot * 31 + value.hashCode();
+        }
+    }
+
+    /**
+     * An invalid input and how often it was seen.
+     */
+    public static final class InvalidInput
+    {
+        private final String source;
+        private final String value;
+        private final long count;
+        private final long error;
+
+        InvalidInput(String source, String value, long count, long error)
+        {
+            this.source = source;
+            this.value = value;
+            this.count = count;
+            this.error = error;
+        }
+
+        /** The method, and scheme if any, e.g. "FOR_CODE/IOC". */
+        public String getSource() { return source; }
+
+        /** The input, cut to 32 characters; "null" for a null input. */
+        public String getValue()  { return value; }
+
+        /** How often it was seen; an overestimate by at most {@link #getError()}. */
+        public long getCount()    { return count; }
+
+        public long getError()    { return error; }
+
+        @Override
+        public String toString()
+        {
+            return count + " " + source + " " + value;
+        }
+    }
+
+    /**
+     * Counts at one point in time.
+     */
+    public static final class Snapshot
+    {
+        private final long[] hits;
+        private final long[] misses;
+        private final List<InvalidInput> topInvalid;
+
+        Snapshot(long[] hits, long[] misses, List<InvalidInput> topInvalid)
+        {
+            this.hits = hits;
+            this.misses = misses;
+            this.topInvalid = Collections.unmodifiableList(new ArrayList<>(topInvalid));
+        }
+
+        /**
+         * @param scheme
+         *         The code scheme, or null for the methods that have none,
+         *         and for ISO lookups of a code of the wrong length.
+         */
+        public long getHits(Method method, CodeScheme scheme)   { return hits[slot(method, scheme)]; }
+
+        public long getMisses(Method method, CodeScheme scheme) { return misses[slot(method, scheme)]; }
+
+        public long getTotalHits()   { return sum(hits); }
+
+        public long getTotalMisses() { return sum(misses); }
+
+        /**
+         * Get the most frequent invalid inputs, most frequent first.
+         */
+        public List<InvalidInput> getTopInvalid()
+        {
+            return topInvalid;
+        }
+
+        Map<String, Long> toMap(boolean hit)
+        {
+            long[] counts = hit ? hits : misses;
+            Map<String, Long> map = new LinkedHashMap<>();
+
+            for (int i = 0; i < SLOTS; i++)
+            {
+                if (0 != counts[i]) { map.put(source(i), counts[i]); }
+            }
+
+            return map;
+        }
+
+        private static long sum(long[] counts)
+        {
+            long sum = 0;
+            for (long c : counts) { sum += c; }
+            return sum;
+        }
+    }
+
+    private static final class Bean implements LookupStatsMXBean
+    {
+        @Override public Map<String, Long> getHits()   { return snapshot().toMap(true); }
+
+        @Override public Map<String, Long> getMisses() { return snapshot().toMap(false); }
+
+        @Override public long getTotalHits()   { return snapshot().getTotalHits(); }
+
+        @Override public long getTotalMisses() { return snapshot().getTotalMisses(); }
+
+        @Override
+        public String[] getTopInvalidInputs()
+        {
+            List<String> lines = new ArrayList<>();
+            for (InvalidInput in : snapshot().getTopInvalid()) { lines.add(in.toString()); }
+
+            return lines.toArray(new String[lines.size()]);
+        }
+
+        @Override public void reset() { LookupStats.reset(); }
+    }
+}
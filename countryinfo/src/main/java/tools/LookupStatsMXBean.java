@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link LookupStats}, registered as
+ * {@value LookupStats#OBJECT_NAME} when instrumentation is enabled.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public interface LookupStatsMXBean
+{
+    /**
+     * Hit counts, keyed "METHOD" or "METHOD/SCHEME"; only non-zero counts
+     * are included.
+     */
+    Map<String, Long> getHits();
+
+    /**
+     * Miss counts, keyed as in {@link #getHits()}.
+     */
+    Map<String, Long> getMisses();
+
+    long getTotalHits();
+
+    long getTotalMisses();
+
+    /**
+     * The most frequent invalid inputs, most frequent first, each formatted
+     * as "count source value".
+     */
+    String[] getTopInvalidInputs();
+
+    /**
+     * Clear all counters and the invalid input sketch.
+     */
+    void reset();
+}
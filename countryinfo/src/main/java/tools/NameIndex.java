@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable search index over country names, for exact lookups and
+ * diacritic-insensitive prefix autocompletion.
+ *
+ * <p>
+ * Names and queries are folded the same way: diacritics are stripped, letters
+ * are lower-cased, and every run of other characters becomes a single space
+ * ("Côte d'Ivoire" is indexed as "cote d ivoire"). Every word start of every
+ * name is an entry in a sorted suffix array, so a prefix query is a binary
+ * search followed by a scan of the matching range.
+ * </p>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+final class NameIndex<T extends CountryAttributes>
+{
+    private static final int EXACT = 0;
+    private static final int NAME_PREFIX = 1;
+    private static final int WORD_PREFIX = 2;
+
+    /** Folded form of every char below this bound, ' ' for separators. */
+    private static final char[] FOLD = new char[0x250];
+
+    static
+    {
+        for (char c = 0; c < FOLD.length; c++)
+        {
+            String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            char base = Character.toLowerCase(decomposed.charAt(0));
+
+            FOLD[c] = Character.isLetterOrDigit(base) ? base : ' ';
+        }
+    }
+
+    private final List<T> items;
+    private final char[][] names;
+    private final int[] entryCountry;
+    private final int[] entryOffset;
+
+    NameIndex(List<T> items)
+    {
+        this.items = new ArrayList<>(items);
+        this.names = new char[items.size()][];
+
+        final List<int[]> entries = new ArrayList<>();
+
+        for (int i = 0; i < names.length; i++)
+        {
+            String name = items.get(i).getCountryName();
+            char[] folded = new char[name.length()];
+            names[i] = Arrays.copyOf(folded, trim(folded, fold(name, folded)));
+
+            for (int off = 0; off < names[i].length; off++)
+            {
+                if (0 == off || ' ' == names[i][off - 1]) { entries.add(new int[] { i, off }); }
+            }
+        }
+
+        Collections.sort(entries, new Comparator<int[]>()
+        {
+            @Override
+            public int compare(int[] a, int[] b)
+            {
+                char[] x = names[a[0]];
+                char[] y = names[b[0]];
+                int c = compareRange(x, a[1], x.length, y, b[1], y.length);
+
+                return 0 != c ? c : Integer.compare(a[1], b[1]);
+            }
+        });
+
+        this.entryCountry = new int[entries.size()];
+        this.entryOffset = new int[entries.size()];
+
+        for (int i = 0; i < entryCountry.length; i++)
+        {
+            entryCountry[i] = entries.get(i)[0];
+            entryOffset[i] = entries.get(i)[1];
+        }
+    }
+
+    /**
+     * Get the country whose folded name equals the folded query, or null.
+     */
+    T get(CharSequence name)
+    {
+        char[] query = new char[name.length()];
+        int length = trim(query, fold(name, query));
+
+        for (int e = lowerBound(query, length); e < entryCountry.length; e++)
+        {
+            char[] candidate = names[entryCountry[e]];
+            int off = entryOffset[e];
+
+            if (!startsWith(candidate, off, query, length)) { break; }
+
+            if (0 == off && candidate.length == length) { return items.get(entryCountry[e]); }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get up to {@code limit} countries whose name, or one of whose name's
+     * words, starts with the folded query. Exact matches rank first, then
+     * matches at the start of the name, then matches at a later word; ties
+     * are broken by shorter name, then alphabetically.
+     */
+    List<T> search(CharSequence prefix, int limit)
+    {
+        char[] query = new char[prefix.length()];
+        int length = fold(prefix, query);
+
+        // A trailing separator asks for a whole word: "congo " matches
+        // "congo kinshasa" and "congo" but not "congolese".
+        boolean wordEnd = length > 0 && ' ' == query[length - 1];
+        if (wordEnd) { length--; }
+
+        if (0 == length || limit <= 0) { return Collections.emptyList(); }
+
+        int[] top = new int[limit];
+        int[] topRank = new int[limit];
+        int size = 0;
+
+        for (int e = lowerBound(query, length); e < entryCountry.length; e++)
+        {
+            int country = entryCountry[e];
+            char[] candidate = names[country];
+            int off = entryOffset[e];
+
+            if (!startsWith(candidate, off, query, length)) { break; }
+            if (wordEnd && off + length < candidate.length && ' ' != candidate[off + length]) { continue; }
+
+            int rank = 0 != off ? WORD_PREFIX : candidate.length == length ? EXACT : NAME_PREFIX;
+            size = offer(top, topRank, size, country, rank);
+        }
+
+        List<T> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) { result.add(items.get(top[i])); }
+
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Insert a candidate into the bounded, sorted top list, keeping only the
+     * best rank of each country. Returns the new size.
+     */
+    private int offer(int[] top, int[] topRank, int size, int country, int rank)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (top[i] != country) { continue; }
+            if (topRank[i] <= rank) { return size; }
+
+            // Better rank for a country already listed: drop it and reinsert.
+            System.arraycopy(top, i + 1, top, i, size - i - 1);
+            System.arraycopy(topRank, i + 1, topRank, i, size - i - 1);
+            size--;
+            break;
+        }
+
+        int pos = size;
+        while (pos > 0 && better(country, rank, top[pos - 1], topRank[pos - 1])) { pos--; }
+
+        if (pos >= top.length) { return size; }
+
+        int moved = Math.min(size, top.length - 1) - pos;
+        System.arraycopy(top, pos, top, pos + 1, moved);
+        System.arraycopy(topRank, pos, topRank, pos + 1, moved);
+        top[pos] = country;
+        topRank[pos] = rank;
+
+        return Math.min(size + 1, top.length);
+    }
+
+    private boolean better(int country, int rank, int other, int otherRank)
+    {
+        if (rank != otherRank) { return rank < otherRank; }
+
+        char[] a = names[country];
+        char[] b = names[other];
+        if (a.length != b.length) { return a.length < b.length; }
+
+        return compareRange(a, 0, a.length, b, 0, b.length) < 0;
+    }
+
+    private int lowerBound(char[] query, int length)
+    {
+        int lo = 0;
+        int hi = entryCountry.length;
+
+        while (lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            char[] name = names[entryCountry[mid]];
+
+            if (compareRange(name, entryOffset[mid], name.length, query, 0, length) < 0)
+            {
+                lo = mid + 1;
+            }
+            else
+            {
+                hi = mid;
+            }
+        }
+
+        return lo;
+    }
+
+    private static boolean startsWith(char[] name, int off, char[] query, int length)
+    {
+        if (name.length - off < length) { return false; }
+
+        for (int i = 0; i < length; i++)
+        {
+            if (name[off + i] != query[i]) { return false; }
+        }
+
+        return true;
+    }
+
+    private static int compareRange(char[] a, int aFrom, int aTo, char[] b, int bFrom, int bTo)
+    {
+        int n = Math.min(aTo - aFrom, bTo - bFrom);
+
+        for (int i = 0; i < n; i++)
+        {
+            int c = a[aFrom + i] - b[bFrom + i];
+            if (0 != c) { return c; }
+        }
+
+        return (aTo - aFrom) - (bTo - bFrom);
+    }
+
+    private static int trim(char[] folded, int length)
+    {
+        while (length > 0 && ' ' == folded[length - 1]) { length--; }
+
+        return length;
+    }
+
+    /**
+     * Fold {@code text} into {@code out}, which must be at least as long, and
+     * return the folded length. Leading separators are dropped and runs of
+     * separators collapse to one space; a single trailing space is kept.
+     */
+    static int fold(CharSequence text, char[] out)
+    {
+        int length = 0;
+
+        for (int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            char f = c < FOLD.length ? FOLD[c]
+                   : Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : ' ';
+
+            if (' ' == f && (0 == length || ' ' == out[length - 1])) { continue; }
+
+            out[length++] = f;
+        }
+
+        return length;
+    }
+}
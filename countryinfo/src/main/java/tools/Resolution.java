@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of {@link CountryInfo#resolve(CharSequence)}: the country found,
+ * how it was found, and every candidate when the input is ambiguous.
+ *
+ * <pre>
+ * Resolution r = CountryInfo.resolve("JA");
+ * r.{@link #getCountry()};       <span style="color: darkgreen;">// JPN</span>
+ * r.{@link #getSource()};        <span style="color: darkgreen;">// CODE</span>
+ * r.{@link #getScheme()};        <span style="color: darkgreen;">// FIPS</span>
+ *
+ * r = CountryInfo.resolve("+1");
+ * r.{@link #isAmbiguous()};      <span style="color: darkgreen;">// true</span>
+ * r.{@link #getCandidates()};    <span style="color: darkgreen;">// [USA, CAN, ...]</span>
+ * </pre>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public final class Resolution
+{
+    /**
+     * Kind of lookup that matched.
+     */
+    public enum Source
+    {
+        /** A code of {@link Resolution#getScheme()}. */
+        CODE,
+        /** An exact country name. */
+        NAME,
+        /** The start of one or more country names. */
+        NAME_PREFIX,
+        /** An international dialing prefix. */
+        PHONE_NUMBER,
+        /** A country-code top-level domain. */
+        HOSTNAME,
+        /** Nothing matched. */
+        NONE
+    }
+
+    /** The result for an input that matches nothing. */
+    public static final Resolution NONE = new Resolution(Source.NONE, null, null, Collections.<CountryInfo>emptyList());
+
+    private final Source source;
+    private final CodeScheme scheme;
+    private final CountryInfo country;
+    private final List<CountryInfo> candidates;
+
+    Resolution(Source source, CodeScheme scheme, CountryInfo country, List<CountryInfo> candidates)
+    {
+        this.source = source;
+        this.scheme = scheme;
+        this.country = country;
+        this.candidates = Collections.unmodifiableList(candidates);
+    }
+
+    static Resolution of(Source source, CodeScheme scheme, CountryInfo country)
+    {
+        return new Resolution(source, scheme, country, Collections.singletonList(country));
+    }
+
+    /**
+     * Get the country, or null if nothing matched or the input is
+     * ambiguous.
+     */
+    public CountryInfo getCountry()
+    {
+        return country;
+    }
+
+    public Source getSource()
+    {
+        return source;
+    }
+
+    /**
+     * Get the code scheme that matched when the source is
+     * {@link Source#CODE}, otherwise null.
+     */
+    public CodeScheme getScheme()
+    {
+        return scheme;
+    }
+
+    /**
+     * Get every country the input matched in the winning scheme or source:
+     * the country alone when resolved, all of them when ambiguous, and an
+     * empty list when nothing matched. When a code is shared but one
+     * candidate is preferred (see
+     * {@link CountryInfo#tryForCode(CodeScheme, CharSequence)}), the input
+     * is resolved and this lists all of them.
+     */
+    public List<CountryInfo> getCandidates()
+    {
+        return candidates;
+    }
+
+    public boolean isResolved()
+    {
+        return null != country;
+    }
+
+    public boolean isAmbiguous()
+    {
+        return null == country && candidates.size() > 1;
+    }
+
+    @Override
+    public String toString()
+    {
+        String how = null == scheme ? source.toString() : source + " " + scheme;
+
+        if (null != country) { return country + " (" + how + ")"; }
+
+        return candidates.isEmpty() ? source.toString() : candidates + " (" + how + ")";
+    }
+}
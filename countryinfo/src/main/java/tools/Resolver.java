@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.util.List;
+
+/**
+ * Resolves free-form country input, such as "jp", "JPN", "392", "Japan",
+ * "+81", ".jp", "JA" or "NED", to a country, with an optional cache of
+ * results. {@link CountryInfo#resolve(CharSequence)} uses
+ * {@link #getDefault()}.
+ *
+ * <p>
+ * The input is trimmed and classified by shape, and the lookups that fit
+ * the shape are tried in a fixed order; the first that matches wins:
+ * </p>
+ * <ul>
+ *   <li>"+" then digits, or "00" then at least two digits, or digits with
+ *       spaces, dashes or parentheses: international dialing prefix;</li>
+ *   <li>up to 3 digits: {@link CodeScheme#ISO_NUMERIC}, then
+ *       {@link CodeScheme#GAUL}; 4 or more digits: GAUL, then dialing
+ *       prefix;</li>
+ *   <li>1 letter: ITU, DS;</li>
+ *   <li>2 letters: ISO alpha-2, FIPS, WMO, MARC, ITU, DS;</li>
+ *   <li>3 letters: ISO alpha-3, IOC, FIFA, ITU, DS, MARC;</li>
+ *   <li>no spaces and a "." or "@": ccTLD of a host name or e-mail
+ *       address;</li>
+ *   <li>anything else, and letters that matched no code: exact country
+ *       name, then the start of country names.</li>
+ * </ul>
+ *
+ * <p>
+ * Inputs matching several countries in the winning lookup are resolved to
+ * the preferred one where {@link CountryInfo#tryForCode(CodeScheme,
+ * CharSequence)} has one, and are otherwise returned as ambiguous with the
+ * candidates.
+ * </p>
+ *
+ * <p>
+ * The cache is a bounded concurrent W-TinyLFU cache, which suits inputs that
+ * repeat heavily. It is keyed by the trimmed input, upper-cased when it is
+ * one to three letters (a code, matched regardless of case), so " jp" and
+ * "JP" share an entry; a hit copies nothing. Its size for the default
+ * resolver is read from {@code countryinfo.resolve.cacheSize} (default
+ * 4096; 0 disables it).
+ * </p>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public final class Resolver
+{
+    /** Most candidates returned for a name prefix. */
+    static final int MAX_NAME_CANDIDATES = 10;
+
+    private static final CodeScheme[] ONE_LETTER = { CodeScheme.ITU, CodeScheme.DS };
+
+    private static final CodeScheme[] TWO_LETTERS =
+    {
+        CodeScheme.ISO_ALPHA2, CodeScheme.FIPS, CodeScheme.WMO, CodeScheme.MARC, CodeScheme.ITU, CodeScheme.DS
+    };
+
+    private static final CodeScheme[] THREE_LETTERS =
+    {
+        CodeScheme.ISO_ALPHA3, CodeScheme.IOC, CodeScheme.FIFA, CodeScheme.ITU, CodeScheme.DS, CodeScheme.MARC
+    };
+
+    private static final CodeScheme[] DIGITS = { CodeScheme.ISO_NUMERIC, CodeScheme.GAUL };
+
+    private static final CodeScheme[] GAUL = { CodeScheme.GAUL };
+
+    private static final class DefaultHolder
+    {
+        static final Resolver instance = new Resolver(Integer.getInteger("countryinfo.resolve.cacheSize", 4096));
+    }
+
+    // Per-thread probe for cache lookups; copied only on a miss.
+    private static final ThreadLocal<BoundedCache.Key> probe = new ThreadLocal<BoundedCache.Key>()
+    {
+        @Override
+        protected BoundedCache.Key initialValue()
+        {
+            return new BoundedCache.Key(32);
+        }
+    };
+
+    private final BoundedCache<Resolution> cache;
+
+    /**
+     * Create a resolver.
+     *
+     * @param cacheSize
+     *         Most results to cache; 0 for no cache.
+     */
+    public Resolver(int cacheSize)
+    {
+        if (cacheSize < 0) { throw new IllegalArgumentException("negative cache size: " + cacheSize); }
+
+        this.cache = 0 == cacheSize ? null : new BoundedCache<Resolution>(cacheSize);
+    }
+
+    /**
+     * Get the resolver used by {@link CountryInfo#resolve(CharSequence)}.
+     */
+    public static Resolver getDefault()
+    {
+        return DefaultHolder.instance;
+    }
+
+    /**
+     * Resolve free-form input to a country.
+     *
+     * @param input
+     *         Country input in any supported form. May be null.
+     *
+     * @return
+     *         The resolution; {@link Resolution#NONE} if nothing matched.
+     */
+    public Resolution resolve(CharSequence input)
+    {
+        if (null == input) { return Resolution.NONE; }
+
+        Resolution r;
+
+        if (null == cache)
+        {
+            r = compute(input);
+        }
+        else
+        {
+            int start = 0, end = input.length();
+            while (start < end && input.charAt(start) <= ' ') { start++; }
+            while (end > start && input.charAt(end - 1) <= ' ') { end--; }
+
+            BoundedCache.Key key = probe.get().set(input, start, end, isCodeShaped(input, start, end));
+            r = cache.get(key);
+
+            if (null == r)
+            {
+                key = key.copy();
+                r = compute(key);
+                cache.put(key, r);
+            }
+        }
+
+        if (LookupStats.ENABLED) { LookupStats.record(LookupStats.Method.RESOLVE, null, r.isResolved(), input); }
+
+        return r;
+    }
+
+    /** Cache hits so far; 0 without a cache. */
+    public long getCacheHits()      { return null == cache ? 0 : cache.hits(); }
+
+    /** Cache misses so far; 0 without a cache. */
+    public long getCacheMisses()    { return null == cache ? 0 : cache.misses(); }
+
+    /** Entries dropped by the cache so far; 0 without a cache. */
+    public long getCacheEvictions() { return null == cache ? 0 : cache.evictions(); }
+
+    /** Entries in the cache. */
+    public int getCacheSize()       { return null == cache ? 0 : cache.size(); }
+
+    /**
+     * Get the fraction of lookups answered from the cache, or 0 if there
+     * were none.
+     */
+    public double getCacheHitRate()
+    {
+        long hits = getCacheHits();
+        long total = hits + getCacheMisses();
+
+        return 0 == total ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Whether {@code s[start, end)} is one to three ASCII letters, which
+     * only ever match case-insensitive codes.
+     */
+    private static boolean isCodeShaped(CharSequence s, int start, int end)
+    {
+        if (end - start > 3) { return false; }
+
+        for (int i = start; i < end; i++)
+        {
+            char c = s.charAt(i);
+            if ((c | 0x20) < 'a' || (c | 0x20) > 'z') { return false; }
+        }
+
+        return true;
+    }
+
+    static Resolution compute(CharSequence input)
+    {
+        int start = 0, end = input.length();
+        while (start < end && input.charAt(start) <= ' ') { start++; }
+        while (end > start && input.charAt(end - 1) <= ' ') { end--; }
+
+        if (start == end) { return Resolution.NONE; }
+
+        CharSequence s = 0 == start && input.length() == end ? input : input.subSequence(start, end);
+        int length = s.length();
+
+        int letters = 0, digits = 0, dialPunctuation = 0;
+        boolean space = false, dot = false;
+
+        for (int i = 0; i < length; i++)
+        {
+            char c = s.charAt(i);
+
+            if ((c | 0x20) >= 'a' && (c | 0x20) <= 'z') { letters++; }
+            else if (c >= '0' && c <= '9') { digits++; }
+            else if (c == ' ') { space = true; dialPunctuation++; }
+            else if (c == '-' || c == '(' || c == ')') { dialPunctuation++; }
+            else if (c == '.' || c == '@') { dot = true; }
+        }
+
+        Resolution r;
+
+        if (digits > 0 && 0 == letters && !dot)
+        {
+            boolean plus = s.charAt(0) == '+';
+
+            if (digits + dialPunctuation + (plus ? 1 : 0) < length) { return Resolution.NONE; }
+
+            if (plus || dialPunctuation > 0 || (length > 3 && s.charAt(0) == '0' && s.charAt(1) == '0'))
+            {
+                return dial(s);
+            }
+
+            if (length <= 3) { return codes(s, DIGITS); }
+
+            r = codes(s, GAUL);
+            return r.getSource() != Resolution.Source.NONE ? r : dial(s);
+        }
+
+        if (letters == length && length <= 3)
+        {
+            r = codes(s, 1 == length ? ONE_LETTER : 2 == length ? TWO_LETTERS : THREE_LETTERS);
+            if (r.getSource() != Resolution.Source.NONE) { return r; }
+        }
+
+        if (dot && !space)
+        {
+            CountryInfo ci = CountryInfo.lookupHostname(s);
+            if (null != ci) { return Resolution.of(Resolution.Source.HOSTNAME, null, ci); }
+        }
+
+        return name(s);
+    }
+
+    private static Resolution codes(CharSequence code, CodeScheme[] schemes)
+    {
+        for (CodeScheme scheme : schemes)
+        {
+            List<CountryInfo> all = CountryInfo.lookupAllCodes(scheme, code);
+
+            if (!all.isEmpty())
+            {
+                CountryInfo ci = CountryInfo.lookupCode(scheme, code);
+                return new Resolution(Resolution.Source.CODE, scheme, ci, all);
+            }
+        }
+
+        return Resolution.NONE;
+    }
+
+    private static Resolution dial(CharSequence number)
+    {
+        List<CountryInfo> all = CountryInfo.lookupPhoneNumber(number);
+
+        if (all.isEmpty()) { return Resolution.NONE; }
+
+        CountryInfo ci = 1 == all.size() ? all.get(0) : null;
+        return new Resolution(Resolution.Source.PHONE_NUMBER, null, ci, all);
+    }
+
+    private static Resolution name(CharSequence name)
+    {
+        CountryInfo ci = CountryInfo.lookupName(name);
+        if (null != ci) { return Resolution.of(Resolution.Source.NAME, null, ci); }
+
+        List<CountryInfo> all = CountryInfo.lookupNames(name, MAX_NAME_CANDIDATES);
+
+        if (all.isEmpty()) { return Resolution.NONE; }
+
+        ci = 1 == all.size() ? all.get(0) : null;
+        return new Resolution(Resolution.Source.NAME_PREFIX, null, ci, all);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+/**
+ * Sovereignty status of a country, parsed from
+ * {@link CountryInfo#getIndependent()}.
+ *
+ * <pre>
+ * CountryInfo.GUM.{@link CountryInfo#getSovereignty() getSovereignty}();   <span style="color: darkgreen;">// TERRITORY_OF</span>
+ * CountryInfo.GUM.{@link CountryInfo#getSovereign() getSovereign}();     <span style="color: darkgreen;">// USA</span>
+ * CountryInfo.USA.{@link CountryInfo#getDependents() getDependents}();    <span style="color: darkgreen;">// [ASM, GUM, MNP, PRI, UMI, VIR]</span>
+ * </pre>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+public enum Sovereignty
+{
+    /** A sovereign state ("Yes"). */
+    INDEPENDENT("Yes"),
+
+    /** An integral part of another state ("Part of FR"). */
+    PART_OF("Part of "),
+
+    /** A territory of another state ("Territory of GB", "Territories of US"). */
+    TERRITORY_OF("Territory of "),
+
+    /** In free association with another state ("Associated with NZ"). */
+    ASSOCIATED_WITH("Associated with "),
+
+    /** A commonwealth of another state ("Commonwealth of US"). */
+    COMMONWEALTH_OF("Commonwealth of "),
+
+    /** A crown dependency ("Crown dependency of GB"). */
+    CROWN_DEPENDENCY_OF("Crown dependency of "),
+
+    /** Under international administration ("International"). */
+    INTERNATIONAL("International"),
+
+    /** Sovereignty is disputed ("In contention"). */
+    IN_CONTENTION("In contention"),
+
+    /** The data could not be parsed; see {@link CountryInfo#sovereigntyIssues()}. */
+    UNKNOWN("");
+
+    private final String text;
+
+    private Sovereignty(String text)
+    {
+        this.text = text;
+    }
+
+    /**
+     * Whether countries with this status have a sovereign state, returned
+     * by {@link CountryInfo#getSovereign()}.
+     */
+    public boolean isDependency()
+    {
+        return text.endsWith(" ");
+    }
+
+    /**
+     * Get the status for the text of {@link CountryInfo#getIndependent()},
+     * ignoring the reference to the sovereign state; {@link #UNKNOWN} if it
+     * is not recognized.
+     */
+    static Sovereignty parse(String independent)
+    {
+        String s = independent.trim();
+
+        if (s.startsWith("Territories of ")) { return TERRITORY_OF; }
+
+        for (Sovereignty status : values())
+        {
+            if (UNKNOWN == status) { continue; }
+
+            if (status.isDependency() ? s.startsWith(status.text) && s.length() > status.text.length()
+                                      : s.equals(status.text))
+            {
+                return status;
+            }
+        }
+
+        return UNKNOWN;
+    }
+
+    /**
+     * Get the reference to the sovereign state in the text of
+     * {@link CountryInfo#getIndependent()}, e.g. "GB"; null if the status
+     * has none.
+     */
+    static String reference(String independent)
+    {
+        String s = independent.trim();
+        Sovereignty status = parse(s);
+
+        if (!status.isDependency()) { return null; }
+
+        return s.substring(s.lastIndexOf(' ') + 1);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable sovereignty graph of the {@link CountryInfo} constants, parsed
+ * once from {@link CountryInfo#getIndependent()}, with the problems found in
+ * the data while parsing it.
+ *
+ * <p>
+ * Three kinds of problems are reported by {@link #issues()}:
+ * </p>
+ * <ul>
+ *   <li>text that is not a known status, which becomes
+ *       {@link Sovereignty#UNKNOWN};</li>
+ *   <li>a reference to a sovereign state that is not an ISO 3166-1 code
+ *       (dangling), or is the country itself, which is then left
+ *       without a sovereign;</li>
+ *   <li>a reference to a country that is not itself independent, which is
+ *       kept.</li>
+ * </ul>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+final class SovereigntyIndex
+{
+    private final Sovereignty[] status;
+    private final CountryInfo[] sovereign;
+    private final CountrySet[] dependents;
+    private final List<String> issues;
+
+    SovereigntyIndex(CountryInfo[] values)
+    {
+        this(values, independent(values));
+    }
+
+    /**
+     * Parse the given status texts instead of the data, for checking the
+     * validation: {@code independent[i]} stands for the country of ordinal
+     * i.
+     */
+    SovereigntyIndex(CountryInfo[] values, String[] independent)
+    {
+        status = new Sovereignty[values.length];
+        sovereign = new CountryInfo[values.length];
+        dependents = new CountrySet[values.length];
+
+        List<String> found = new ArrayList<>();
+        List<List<CountryInfo>> children = new ArrayList<>();
+
+        for (CountryInfo ci : values)
+        {
+            children.add(new ArrayList<CountryInfo>());
+
+            String text = independent[ci.ordinal()];
+            Sovereignty s = Sovereignty.parse(text);
+            status[ci.ordinal()] = s;
+
+            if (Sovereignty.UNKNOWN == s)
+            {
+                found.add(ci + ": unrecognized status \"" + text + "\"");
+                continue;
+            }
+
+            String reference = Sovereignty.reference(text);
+            if (null == reference) { continue; }
+
+            CountryInfo owner = CountryInfo.lookupCode(2 == reference.length() ? CodeScheme.ISO_ALPHA2 : CodeScheme.ISO_ALPHA3, reference);
+
+            if (null == owner)
+            {
+                found.add(ci + ": \"" + text + "\" refers to unknown country " + reference);
+            }
+            else if (owner == ci)
+            {
+                found.add(ci + ": \"" + text + "\" refers to itself");
+            }
+            else
+            {
+                sovereign[ci.ordinal()] = owner;
+            }
+        }
+
+        for (CountryInfo ci : values)
+        {
+            CountryInfo owner = sovereign[ci.ordinal()];
+            if (null == owner) { continue; }
+
+            children.get(owner.ordinal()).add(ci);
+
+            if (Sovereignty.INDEPENDENT != status[owner.ordinal()])
+            {
+                found.add(ci + ": sovereign " + owner + " is not independent (\"" + independent[owner.ordinal()] + "\")");
+            }
+        }
+
+        for (CountryInfo ci : values)
+        {
+            List<CountryInfo> list = children.get(ci.ordinal());
+            dependents[ci.ordinal()] = list.isEmpty() ? CountrySet.NONE : CountrySet.copyOf(list);
+        }
+
+        this.issues = Collections.unmodifiableList(found);
+    }
+
+    private static String[] independent(CountryInfo[] values)
+    {
+        String[] texts = new String[values.length];
+        for (CountryInfo ci : values) { texts[ci.ordinal()] = ci.getIndependent(); }
+
+        return texts;
+    }
+
+    Sovereignty status(CountryInfo ci)
+    {
+        return status[ci.ordinal()];
+    }
+
+    CountryInfo sovereign(CountryInfo ci)
+    {
+        return sovereign[ci.ordinal()];
+    }
+
+    CountrySet dependents(CountryInfo ci)
+    {
+        return dependents[ci.ordinal()];
+    }
+
+    List<String> issues()
+    {
+        return issues;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Keys, hit counting and W-TinyLFU admission of {@link BoundedCache}.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+class BoundedCacheTest
+{
+    private static BoundedCache.Key key(String s)
+    {
+        return new BoundedCache.Key(s.length()).set(s, 0, s.length(), false);
+    }
+
+    @Test
+    void keysCompareByContent()
+    {
+        BoundedCache.Key probe = new BoundedCache.Key(1).set(" jp ", 1, 3, true);
+
+        assertEquals(key("JP"), probe);
+        assertEquals(key("JP").hashCode(), probe.hashCode());
+        assertEquals("JP", probe.toString());
+        assertNotEquals(key("JPN"), probe);
+        assertEquals(key("jp"), new BoundedCache.Key(8).set("jp", 0, 2, false));
+    }
+
+    @Test
+    void copiesDoNotFollowTheProbe()
+    {
+        BoundedCache.Key probe = key("France");
+        BoundedCache.Key copy = probe.copy();
+
+        probe.set("Germany", 0, 7, false);
+
+        assertEquals("France", copy.toString());
+        assertEquals("Germany", probe.toString());
+    }
+
+    @Test
+    void countsHitsAndMisses()
+    {
+        BoundedCache<String> cache = new BoundedCache<>(100);
+        BoundedCache.Key probe = new BoundedCache.Key(4);
+
+        assertNull(cache.get(probe.set("a", 0, 1, false)));
+        cache.put(probe.copy(), "A");
+        assertEquals("A", cache.get(probe.set("a", 0, 1, false)));
+        assertNull(cache.get(probe.set("b", 0, 1, false)));
+
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void staysWithinCapacity()
+    {
+        BoundedCache<Integer> cache = new BoundedCache<>(256);
+
+        for (int i = 0; i < 10_000; i++) { cache.put(key("k" + i), i); }
+
+        assertTrue(cache.size() <= 256, "size " + cache.size());
+        assertTrue(cache.evictions() > 0);
+    }
+
+    @Test
+    void popularKeysSurviveAScan()
+    {
+        BoundedCache<Integer> cache = new BoundedCache<>(128);
+
+        for (int round = 0; round < 10; round++)
+        {
+            for (int i = 0; i < 64; i++)
+            {
+                BoundedCache.Key k = key("hot" + i);
+                if (null == cache.get(k)) { cache.put(k, i); }
+            }
+        }
+
+        // One-off keys interleaved with the popular ones still being asked for.
+        for (int i = 0; i < 5_000; i++)
+        {
+            BoundedCache.Key k = key("cold" + i);
+            if (null == cache.get(k)) { cache.put(k, i); }
+
+            k = key("hot" + (i & 63));
+            if (null == cache.get(k)) { cache.put(k, i); }
+        }
+
+        int kept = 0;
+        for (int i = 0; i < 64; i++) { if (null != cache.get(key("hot" + i))) { kept++; } }
+
+        assertTrue(kept >= 60, "kept " + kept);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Serial and parallel columnar resolution by {@link BulkResolver}.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+class BulkResolverTest
+{
+    private static final BulkResolver SERIAL = new BulkResolver(Integer.MAX_VALUE);
+
+    @Test
+    void missBitmap()
+    {
+        long[] misses = BulkResolver.newMissBitmap(130);
+
+        assertEquals(3, misses.length);
+        assertEquals(0, BulkResolver.newMissBitmap(0).length);
+        assertEquals(1, BulkResolver.newMissBitmap(64).length);
+
+        misses[2] = 1L << 1;
+        assertTrue(BulkResolver.isMiss(misses, 129));
+        assertFalse(BulkResolver.isMiss(misses, 128));
+        assertFalse(BulkResolver.isMiss(misses, 1));
+    }
+
+    @Test
+    void resolvesCodes()
+    {
+        CharSequence[] codes = { "FR", "deu", "XX", null, "JPN", "" };
+        short[] ordinals = new short[codes.length];
+        long[] misses = BulkResolver.newMissBitmap(codes.length);
+
+        assertEquals(3, SERIAL.resolve(codes, ordinals, misses));
+        assertArrayEquals(new short[]
+        {
+            ordinal(CountryInfo.FRA), ordinal(CountryInfo.DEU), CountryInfo.NO_ORDINAL,
+            CountryInfo.NO_ORDINAL, ordinal(CountryInfo.JPN), CountryInfo.NO_ORDINAL
+        }, ordinals);
+        assertEquals(0b101100L, misses[0]);
+    }
+
+    @Test
+    void resolvesPackedCodes()
+    {
+        short[] expected = { ordinal(CountryInfo.JPN), ordinal(CountryInfo.USA), CountryInfo.NO_ORDINAL, ordinal(CountryInfo.FRA) };
+        short[] ordinals = new short[4];
+
+        assertEquals(1, SERIAL.resolve("jpUSxxFr", 2, ordinals, null));
+        assertArrayEquals(expected, ordinals);
+
+        Arrays.fill(ordinals, (short) 0);
+        assertEquals(1, SERIAL.resolve("jpUSxxFr".getBytes(StandardCharsets.US_ASCII), 2, ordinals, null));
+        assertArrayEquals(expected, ordinals);
+
+        Arrays.fill(ordinals, (short) 0);
+        ByteBuffer buffer = ByteBuffer.wrap("??JPNusaXXXfra".getBytes(StandardCharsets.US_ASCII));
+        buffer.position(2);
+        assertEquals(1, SERIAL.resolve(buffer, 3, ordinals, null));
+        assertArrayEquals(expected, ordinals);
+        assertEquals(2, buffer.position());
+    }
+
+    @Test
+    void resolvesNumericCodes()
+    {
+        short[] ordinals = new short[4];
+        long[] misses = BulkResolver.newMissBitmap(4);
+
+        assertEquals(2, SERIAL.resolve(new int[] { 4, 0, 250, -1 }, ordinals, misses));
+        assertArrayEquals(new short[] { ordinal(CountryInfo.AFG), CountryInfo.NO_ORDINAL, ordinal(CountryInfo.FRA), CountryInfo.NO_ORDINAL },
+                ordinals);
+        assertEquals(0b1010L, misses[0]);
+    }
+
+    @Test
+    void rejectsBadArguments()
+    {
+        short[] ordinals = new short[2];
+
+        assertThrows(IllegalArgumentException.class, () -> SERIAL.resolve("FRA", 2, ordinals, null));
+        assertThrows(IllegalArgumentException.class, () -> SERIAL.resolve("FRAN", 4, ordinals, null));
+        assertThrows(IllegalArgumentException.class, () -> SERIAL.resolve("FRDEIT", 2, ordinals, null));
+        assertThrows(IllegalArgumentException.class, () -> SERIAL.resolve(new int[65], new short[65], new long[1]));
+        assertThrows(IllegalArgumentException.class, () -> new BulkResolver(63));
+        assertThrows(IllegalArgumentException.class, () -> new BulkResolver(64, null));
+    }
+
+    @Test
+    void parallelMatchesSerial()
+    {
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try
+        {
+            check(new BulkResolver(256, pool), 256 * 5 + 37);
+            check(new BulkResolver(BulkResolver.DEFAULT_PARALLEL_THRESHOLD, pool), BulkResolver.DEFAULT_PARALLEL_THRESHOLD * 3 + 17);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    private static void check(BulkResolver parallel, int size)
+    {
+        Random random = new Random(size);
+        CountryInfo[] values = CountryInfo.values();
+        CharSequence[] codes = new CharSequence[size];
+        int[] numeric = new int[size];
+        boolean[] expectMiss = new boolean[size];
+        int expectedMisses = 0;
+
+        for (int i = 0; i < size; i++)
+        {
+            CountryInfo ci = values[random.nextInt(values.length)];
+            expectMiss[i] = random.nextInt(10) == 0;
+            if (expectMiss[i]) { expectedMisses++; }
+
+            codes[i] = expectMiss[i] ? "X" + random.nextInt(10) : random.nextBoolean() ? ci.getISOa2() : ci.getISOa3();
+            numeric[i] = expectMiss[i] ? 1000 + i : ci.getISONum();
+        }
+
+        short[] serialOrdinals = new short[size];
+        short[] parallelOrdinals = new short[size];
+        long[] serialMisses = BulkResolver.newMissBitmap(size);
+        long[] parallelMisses = BulkResolver.newMissBitmap(size);
+
+        // Stale bits from an earlier use must be overwritten.
+        Arrays.fill(parallelMisses, -1L);
+
+        assertEquals(expectedMisses, SERIAL.resolve(codes, serialOrdinals, serialMisses));
+        assertEquals(expectedMisses, parallel.resolve(codes, parallelOrdinals, parallelMisses));
+        assertArrayEquals(serialOrdinals, parallelOrdinals);
+        assertArrayEquals(serialMisses, parallelMisses);
+
+        int bits = 0;
+        for (long word : parallelMisses) { bits += Long.bitCount(word); }
+        assertEquals(expectedMisses, bits);
+
+        for (int i = 0; i < size; i++)
+        {
+            assertEquals(expectMiss[i], BulkResolver.isMiss(parallelMisses, i), "element " + i);
+            assertEquals(expectMiss[i], CountryInfo.NO_ORDINAL == parallelOrdinals[i], "element " + i);
+        }
+
+        Arrays.fill(parallelMisses, -1L);
+        assertEquals(expectedMisses, parallel.resolve(numeric, parallelOrdinals, parallelMisses));
+        assertArrayEquals(serialMisses, parallelMisses);
+    }
+
+    private static short ordinal(CountryInfo ci)
+    {
+        return (short) ci.ordinal();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Host name lookups of {@link CcTldIndex} through
+ * {@link CountryInfo#tryForHostname(CharSequence)} and
+ * {@link CountryInfo#forHostnames(ByteBuffer, short[])}, and the ccTLD
+ * data checks.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+class CcTldIndexTest
+{
+    @Test
+    void looksAtTheLastLabelOnly()
+    {
+        assertEquals(CountryInfo.JPN, CountryInfo.tryForHostname("www.Example.CO.JP."));
+        assertEquals(CountryInfo.JPN, CountryInfo.tryForHostname("  www.example.co.jp..  "));
+        assertEquals(CountryInfo.FRA, CountryInfo.tryForHostname("someone@mail.FR"));
+        assertEquals(CountryInfo.FRA, CountryInfo.tryForHostname("fr"));
+        assertEquals(CountryInfo.FRA, CountryInfo.forHostname(".fr"));
+
+        assertNull(CountryInfo.tryForHostname("x.com"));
+        assertNull(CountryInfo.tryForHostname("jp.example"));
+        assertNull(CountryInfo.tryForHostname(""));
+        assertNull(CountryInfo.tryForHostname("..."));
+        assertNull(CountryInfo.tryForHostname(null));
+        assertThrows(IllegalArgumentException.class, () -> CountryInfo.forHostname("x.com"));
+    }
+
+    @Test
+    void alpha2OwnerWinsOverAMislistedCcTld()
+    {
+        // ALB lists ".ad" and BLR lists ".bz"; AD and BZ are Andorra and Belize.
+        assertEquals(CountryInfo.AND, CountryInfo.tryForHostname("example.ad"));
+        assertEquals(CountryInfo.BLZ, CountryInfo.tryForHostname("example.bz"));
+
+        List<String> issues = CountryInfo.ccTLDIssues();
+        assertTrue(contains(issues, ".ad", "ALB"), issues.toString());
+        assertTrue(contains(issues, ".bz", "BLR"), issues.toString());
+        assertThrows(UnsupportedOperationException.class, () -> issues.add(""));
+    }
+
+    @Test
+    void emptyCcTldRowsClaimNoLabel()
+    {
+        // BES, BLZ and BVT have an empty ccTLD column: they index nothing,
+        // and an empty last label matches nothing.
+        assertEquals("", CountryInfo.BES.getCCTLD());
+        assertEquals("", CountryInfo.BVT.getCCTLD());
+        assertNull(CountryInfo.tryForHostname("example.bq"));
+        assertNull(CountryInfo.tryForHostname("example.bv"));
+        assertNull(CountryInfo.tryForHostname("example@"));
+
+        // Belize still gets ".bz", as the owner of alpha-2 BZ.
+        assertEquals("", CountryInfo.BLZ.getCCTLD());
+        assertEquals(CountryInfo.BLZ, CountryInfo.tryForHostname("example.BZ"));
+    }
+
+    @Test
+    void resolvesLinesFromABuffer()
+    {
+        ByteBuffer in = ByteBuffer.wrap("www.example.co.jp\r\n\nx.com\nmail.FR.\r\nexample.ad".getBytes(StandardCharsets.US_ASCII));
+        short[] ordinals = new short[8];
+
+        assertEquals(5, CountryInfo.forHostnames(in, ordinals));
+        assertEquals(in.limit(), in.position());
+        assertArrayEquals(new short[]
+        {
+            (short) CountryInfo.JPN.ordinal(), CountryInfo.NO_ORDINAL, CountryInfo.NO_ORDINAL,
+            (short) CountryInfo.FRA.ordinal(), (short) CountryInfo.AND.ordinal()
+        }, Arrays.copyOf(ordinals, 5));
+    }
+
+    @Test
+    void stopsWhenTheOutputIsFull()
+    {
+        ByteBuffer in = ByteBuffer.wrap("a.de\nb.fr\nc.it\n".getBytes(StandardCharsets.US_ASCII));
+        short[] ordinals = new short[2];
+
+        assertEquals(2, CountryInfo.forHostnames(in, ordinals));
+        assertEquals(CountryInfo.FRA.ordinal(), ordinals[1]);
+        assertEquals(10, in.position());
+
+        assertEquals(1, CountryInfo.forHostnames(in, ordinals));
+        assertEquals(CountryInfo.ITA.ordinal(), ordinals[0]);
+        assertEquals(0, CountryInfo.forHostnames(in, ordinals));
+    }
+
+    private static boolean contains(List<String> issues, String label, String country)
+    {
+        for (String issue : issues)
+        {
+            if (issue.contains("ccTLD " + label + " ") && issue.contains(country)) { return true; }
+        }
+
+        return false;
+    }
+}
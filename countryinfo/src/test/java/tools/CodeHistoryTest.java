@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Point-in-time lookups of {@link CodeHistory}.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+class CodeHistoryTest
+{
+    private static LocalDate day(int year)
+    {
+        return LocalDate.of(year, 1, 1);
+    }
+
+    @Test
+    void currentCodesAreValidToday()
+    {
+        for (CountryInfo ci : CountryInfo.values())
+        {
+            assertEquals(ci, CountryInfo.tryForISO(ci.getISOa2(), day(2020)), ci.getISOa2());
+            assertEquals(ci, CountryInfo.tryForISO(ci.getISOa3(), day(2020)), ci.getISOa3());
+            assertEquals(ci, CountryInfo.tryForISO(CodeScheme.numeric(ci.getISONum()), day(2020)), ci.name());
+        }
+    }
+
+    @Test
+    void newCountriesHaveNoCodesBeforeTheyExisted()
+    {
+        assertNull(CountryInfo.tryForISO("KZ", day(1985)));
+        assertNull(CountryInfo.tryForISO("RUS", day(1991)));
+        assertNull(CountryInfo.tryForISO("643", day(1991)));
+        assertNull(CountryInfo.tryForISO("SSD", day(1990)));
+        assertNull(CountryInfo.tryForISO("SSD", LocalDate.of(2011, 8, 8)));
+        assertNull(CountryInfo.tryForISO("HR", day(1991)));
+        assertNull(CountryInfo.tryForISO("MKD", day(1993)));
+        assertNull(CountryInfo.tryForISO("ER", day(1992)));
+        assertNull(CountryInfo.tryForISO("PSE", day(1998)));
+        assertNull(CountryInfo.tryForISO("AX", day(2003)));
+        assertNull(CountryInfo.tryForISO("JEY", day(2005)));
+        assertNull(CountryInfo.tryForISO("MF", day(2006)));
+
+        assertEquals(CountryInfo.KAZ, CountryInfo.tryForISO("KZ", day(1993)));
+        assertEquals(CountryInfo.SSD, CountryInfo.tryForISO("SSD", LocalDate.of(2011, 8, 9)));
+        assertEquals(CountryInfo.IMN, CountryInfo.tryForISO("833", day(2007)));
+    }
+
+    @Test
+    void sudanNumericWasReassigned()
+    {
+        assertEquals(CountryInfo.SDN, CountryInfo.tryForISO("736", day(2005)));
+        assertNull(CountryInfo.tryForISO("729", day(2005)));
+        assertNull(CountryInfo.tryForISO("736", day(2012)));
+        assertEquals(CountryInfo.SDN, CountryInfo.tryForISO("729", day(2012)));
+        assertEquals(CountryInfo.SDN, CountryInfo.tryForISO("SD", day(2005)));
+    }
+
+    @Test
+    void reusedCodesFollowTheirAssignment()
+    {
+        HistoricCode gilbert = CodeHistory.tryForISO("GE", day(1978));
+        assertEquals("Gilbert Islands", gilbert.getName());
+        assertEquals(CountryInfo.KIR, gilbert.getCountry());
+        assertNull(CodeHistory.tryForISO("GE", day(1980)));
+        assertEquals(CountryInfo.GEO, CountryInfo.tryForISO("GE", day(1993)));
+
+        assertEquals(CountryInfo.DJI, CountryInfo.tryForISO("AI", day(1976)));
+        assertEquals(CountryInfo.AIA, CountryInfo.tryForISO("AI", day(1990)));
+        assertNull(CountryInfo.tryForISO("AI", day(1979)));
+
+        assertEquals(Arrays.asList("GE", "GE"), codes(CodeHistory.history("GE")));
+    }
+
+    @Test
+    void dissolvedCountriesHaveSuccessors()
+    {
+        HistoricCode ant = CodeHistory.tryForISO("ANT", day(2005));
+
+        assertNull(ant.getCountry());
+        assertEquals(Arrays.asList(CountryInfo.BES, CountryInfo.CUW, CountryInfo.SXM), ant.getSuccessors());
+        assertThrows(IllegalArgumentException.class, () -> CountryInfo.forISO("ANT", day(2005)));
+        assertTrue(CodeHistory.predecessors(CountryInfo.CUW).contains(ant));
+
+        assertEquals("Czechoslovakia", CodeHistory.tryForISO("CS", day(1990)).getName());
+        assertEquals("Serbia and Montenegro", CodeHistory.tryForISO("CS", day(2005)).getName());
+        assertEquals(CountryInfo.COD, CountryInfo.forISO("ZAR", day(1990)));
+        assertEquals(CountryInfo.BLR, CountryInfo.tryForISO("BYS", day(1990)));
+        assertEquals(CountryInfo.BLR, CountryInfo.tryForISO("BY", day(1990)));
+    }
+
+    @Test
+    void resolvesInBulk()
+    {
+        CharSequence[] codes = { "KZ", "SU", "736", null };
+        HistoricCode[] out = new HistoricCode[codes.length];
+
+        assertEquals(2, CodeHistory.resolve(codes, day(1990), out));
+        assertEquals("USSR", out[1].getName());
+        assertFalse(out[2].isCurrent());
+    }
+
+    private static List<String> codes(List<HistoricCode> history)
+    {
+        String[] codes = new String[history.size()];
+        for (int i = 0; i < codes.length; i++) { codes[i] = history.get(i).getCode(); }
+
+        return Arrays.asList(codes);
+    }
+}
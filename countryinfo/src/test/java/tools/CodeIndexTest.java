@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Code packing, shared codes and the preferred candidate of
+ * {@link CodeIndex}, through {@link CountryInfo#tryForCode(CodeScheme,
+ * CharSequence)} and {@link CountryInfo#allForCode(CodeScheme, CharSequence)}.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+class CodeIndexTest
+{
+    @Test
+    void sharedCodeResolvesToTheIndependentCandidate()
+    {
+        List<CountryInfo> us = CountryInfo.allForCode(CodeScheme.DS, "USA");
+
+        assertEquals(Arrays.asList(CountryInfo.ASM, CountryInfo.GUM, CountryInfo.MNP, CountryInfo.PRI,
+                CountryInfo.UMI, CountryInfo.USA, CountryInfo.VIR), us);
+        assertEquals(CountryInfo.USA, CountryInfo.tryForCode(CodeScheme.DS, "USA"));
+        assertEquals(CountryInfo.FRA, CountryInfo.tryForCode(CodeScheme.DS, "F"));
+        assertThrows(UnsupportedOperationException.class, () -> us.add(CountryInfo.FRA));
+    }
+
+    @Test
+    void indexesEachCommaSeparatedCode()
+    {
+        assertEquals("GZ,WE", CountryInfo.PSE.getFIPS());
+
+        for (String code : new String[] { "GZ", "WE" })
+        {
+            assertEquals(Collections.singletonList(CountryInfo.PSE), CountryInfo.allForCode(CodeScheme.FIPS, code));
+            assertEquals(CountryInfo.PSE, CountryInfo.tryForCode(CodeScheme.FIPS, code));
+        }
+
+        assertNull(CountryInfo.tryForCode(CodeScheme.FIPS, "GZ,WE"));
+    }
+
+    @Test
+    void ambiguousCodeWithoutOneIndependentCandidateIsNull()
+    {
+        // Neither candidate is independent.
+        assertEquals(Arrays.asList(CountryInfo.ABW, CountryInfo.BES), CountryInfo.allForCode(CodeScheme.WMO, "NU"));
+        assertNull(CountryInfo.tryForCode(CodeScheme.WMO, "NU"));
+        assertEquals(3, CountryInfo.allForCode(CodeScheme.MARC, "uik").size());
+        assertNull(CountryInfo.tryForCode(CodeScheme.MARC, "uik"));
+
+        // Both candidates are independent.
+        assertEquals(Arrays.asList(CountryInfo.BEL, CountryInfo.LUX), CountryInfo.allForCode(CodeScheme.WMO, "BX"));
+        assertNull(CountryInfo.tryForCode(CodeScheme.WMO, "BX"));
+        assertThrows(IllegalArgumentException.class, () -> CountryInfo.forCode(CodeScheme.WMO, "BX"));
+    }
+
+    @Test
+    void matchesIgnoringCase()
+    {
+        assertEquals(CountryInfo.USA, CountryInfo.tryForCode(CodeScheme.DS, "usa"));
+        assertEquals(CountryInfo.PSE, CountryInfo.tryForCode(CodeScheme.FIPS, "gZ"));
+        assertEquals(CountryInfo.NLD, CountryInfo.tryForCode(CodeScheme.IOC, "Ned"));
+        assertEquals(CountryInfo.ABW, CountryInfo.tryForCode(CodeScheme.MARC, "AW"));
+        assertEquals(CodeIndex.key("Ned", 0, 3), CodeIndex.key("NED", 0, 3));
+    }
+
+    @Test
+    void unindexableCodesMissCleanly()
+    {
+        String thirteen = "USAUSAUSAUSAU";
+
+        assertEquals(0, CodeIndex.key(thirteen, 0, 13));
+        assertNotEquals(0, CodeIndex.key("ZZZZZZZZZZZZ", 0, 12));
+        assertNull(CountryInfo.tryForCode(CodeScheme.DS, thirteen));
+        assertTrue(CountryInfo.allForCode(CodeScheme.DS, thirteen).isEmpty());
+
+        for (String code : new String[] { "US-A", "U A", "ÜSA", "US@", "US[", "US`", "US{", "", "US\u0000" })
+        {
+            assertEquals(0, CodeIndex.key(code, 0, code.length()), code);
+            assertNull(CountryInfo.tryForCode(CodeScheme.DS, code), code);
+            assertTrue(CountryInfo.allForCode(CodeScheme.IOC, code).isEmpty(), code);
+        }
+
+        assertNull(CountryInfo.tryForCode(CodeScheme.DS, null));
+        assertTrue(CountryInfo.allForCode(CodeScheme.DS, null).isEmpty());
+    }
+
+    @Test
+    void keysAreDistinct()
+    {
+        // Base 37 with digits and letters both non-zero: "0", "00" and "A"
+        // must all differ, as must every one to three character code.
+        String alphabet = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+        Set<Long> keys = new HashSet<>();
+        int count = 0;
+
+        for (int a = -1; a < alphabet.length(); a++)
+        {
+            for (int b = -1; b < alphabet.length(); b++)
+            {
+                if (a >= 0 && b < 0) { continue; }
+
+                for (int c = 0; c < alphabet.length(); c++)
+                {
+                    String code = (a < 0 ? "" : alphabet.substring(a, a + 1)) + (b < 0 ? "" : alphabet.substring(b, b + 1))
+                            + alphabet.charAt(c);
+
+                    keys.add(CodeIndex.key(code, 0, code.length()));
+                    count++;
+                }
+            }
+        }
+
+        assertEquals(count, keys.size());
+    }
+
+    @Test
+    void rejectsUnindexableCodesWhenBuilding()
+    {
+        Map<String, List<CountryInfo>> codes = new LinkedHashMap<>();
+        codes.put("TOOLONGTOINDEX", Collections.singletonList(CountryInfo.FRA));
+
+        assertThrows(IllegalArgumentException.class, () -> new CodeIndex<>(codes));
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * File translation with {@link CodeTranslator}.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+class CodeTranslatorTest
+{
+    @TempDir
+    Path dir;
+
+    @Test
+    void translatesSelectedColumnsOnly() throws IOException
+    {
+        Path in = write("in.csv", "id,from,to\n1,GER,\"NED\"\r\n2,,FRA\n3,BRA,ARG");
+        Path out = dir.resolve("out.csv");
+
+        CodeTranslator.Summary s = new CodeTranslator(CodeScheme.FIFA, CodeScheme.ISO_ALPHA2, ',', true, 1, 2)
+                .translate(in, out, CodeTranslator.Unknown.KEEP, null, 2);
+
+        assertEquals("id,from,to\n1,DE,\"NL\"\r\n2,,FR\n3,BR,AR", read(out));
+        assertEquals(4, s.getRecords());
+        assertEquals(5, s.getTranslated());
+        assertEquals(0, s.getUnknown());
+    }
+
+    @Test
+    void numericTargetsHaveThreeDigits() throws IOException
+    {
+        Path in = write("in.tsv", "AFG\t1\nALB\t2\nUSA\t3\n");
+        Path out = dir.resolve("out.tsv");
+
+        new CodeTranslator(CodeScheme.ISO_ALPHA3, CodeScheme.ISO_NUMERIC, '\t', false, 0)
+                .translate(in, out, CodeTranslator.Unknown.FAIL, null, 1);
+
+        assertEquals("004\t1\n008\t2\n840\t3\n", read(out));
+    }
+
+    @Test
+    void reusesBuffersAcrossManyChunks() throws IOException
+    {
+        StringBuilder input = new StringBuilder(), expected = new StringBuilder();
+        CountryInfo[] values = CountryInfo.values();
+
+        for (int i = 0; i < 5000; i++)
+        {
+            CountryInfo ci = values[i % values.length];
+            input.append(i).append(',').append(ci.getISOa3()).append(",x\n");
+            expected.append(i).append(',').append(ci.getISOa2()).append(",x\n");
+        }
+
+        Path in = write("in.csv", input.toString());
+        Path out = dir.resolve("out.csv");
+        CodeTranslator t = new CodeTranslator(CodeScheme.ISO_ALPHA3, CodeScheme.ISO_ALPHA2, ',', false, 1);
+        t.chunkSize = 100;
+
+        // Far more chunks than the 2 * threads buffers in flight.
+        CodeTranslator.Summary s = t.translate(in, out, CodeTranslator.Unknown.FAIL, null, 2);
+
+        assertEquals(expected.toString(), read(out));
+        assertEquals(5000, s.getRecords());
+        assertEquals(5000, s.getTranslated());
+    }
+
+    @Test
+    void unknownCodesFollowThePolicy() throws IOException
+    {
+        Path in = write("in.csv", "GER,XXX\nZZZ,x\n");
+        Path out = dir.resolve("out.csv");
+        Path side = dir.resolve("side.tsv");
+        CodeTranslator t = new CodeTranslator(CodeScheme.FIFA, CodeScheme.ISO_ALPHA3, ',', false, 0);
+
+        t.translate(in, out, CodeTranslator.Unknown.KEEP, null, 1);
+        assertEquals("DEU,XXX\nZZZ,x\n", read(out));
+
+        t.translate(in, out, CodeTranslator.Unknown.BLANK, null, 1);
+        assertEquals("DEU,XXX\n,x\n", read(out));
+
+        CodeTranslator.Summary s = t.translate(in, out, CodeTranslator.Unknown.SIDE_FILE, side, 1);
+        assertEquals("DEU,XXX\nZZZ,x\n", read(out));
+        assertEquals("8\t0\tZZZ\n", read(side));
+        assertEquals(1, s.getUnknown());
+    }
+
+    @Test
+    void failureLeavesTheOutputUntouched() throws IOException
+    {
+        Path in = write("in.csv", "GER\nZZZ\n");
+        Path out = write("out.csv", "previous");
+        CodeTranslator t = new CodeTranslator(CodeScheme.FIFA, CodeScheme.ISO_ALPHA3, ',', false, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> t.translate(in, out, CodeTranslator.Unknown.FAIL, null, 1));
+
+        assertEquals("previous", read(out));
+
+        try (Stream<Path> files = Files.list(dir))
+        {
+            assertFalse(files.anyMatch(p -> p.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    void rejectsInvalidArguments()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new CodeTranslator(CodeScheme.FIFA, CodeScheme.IOC, '"', false, 0));
+        assertThrows(IllegalArgumentException.class, () -> new CodeTranslator(CodeScheme.FIFA, CodeScheme.IOC, ',', false));
+        assertThrows(IllegalArgumentException.class, () -> new CodeTranslator(CodeScheme.FIFA, CodeScheme.IOC, ',', false, -1));
+    }
+
+    private Path write(String name, String content) throws IOException
+    {
+        return Files.write(dir.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Path file) throws IOException
+    {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Byte ids, packed numeric ids and stream headers of {@link CountryCodec}.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+class CountryCodecTest
+{
+    @Test
+    void byteIdsAreUniqueAndRoundTrip()
+    {
+        Set<Byte> seen = new HashSet<>();
+
+        for (CountryInfo ci : CountryInfo.values())
+        {
+            byte id = CountryCodec.toByteId(ci);
+
+            assertSame(ci, CountryCodec.fromByteId(id));
+            assertTrue(seen.add(id), ci + " shares its id");
+        }
+
+        assertEquals(0, CountryCodec.toByteId(null));
+        assertNull(CountryCodec.fromByteId((byte) 0));
+    }
+
+    @Test
+    void byteIdsAreStable()
+    {
+        // The id table is append-only: these must never change.
+        assertEquals(1, CountryCodec.toByteId(CountryInfo.ABW));
+        assertEquals(2, CountryCodec.toByteId(CountryInfo.AFG));
+        assertEquals(249, CountryCodec.toByteId(CountryInfo.ZWE) & 0xFF);
+    }
+
+    @Test
+    void unassignedIdsAreRejected()
+    {
+        assertThrows(IllegalArgumentException.class, () -> CountryCodec.fromByteId((byte) 255));
+        assertThrows(IllegalArgumentException.class, () -> CountryCodec.fromNumericId(999));
+    }
+
+    @Test
+    void streamWithHeaderRoundTrips()
+    {
+        CountryInfo[] countries = { CountryInfo.JPN, null, CountryInfo.ZWE, CountryInfo.ABW };
+        ByteBuffer buf = ByteBuffer.allocate(CountryCodec.HEADER_SIZE + countries.length);
+
+        CountryCodec.writeHeader(buf);
+        CountryCodec.encode(countries, 0, countries.length, buf);
+        buf.flip();
+
+        assertEquals(CountryCodec.ID_TABLE_VERSION, CountryCodec.readHeader(buf));
+
+        CountryInfo[] decoded = new CountryInfo[countries.length];
+        CountryCodec.decode(buf, decoded, 0, decoded.length);
+        assertArrayEquals(countries, decoded);
+    }
+
+    @Test
+    void headerRejectsForeignOrNewerStreams()
+    {
+        assertThrows(IllegalArgumentException.class, () -> CountryCodec.readHeader(ByteBuffer.allocate(6)));
+
+        ByteBuffer newer = ByteBuffer.allocate(6);
+        CountryCodec.writeHeader(newer);
+        newer.putInt(2, CountryCodec.ID_TABLE_VERSION + 1).flip();
+        assertThrows(IllegalArgumentException.class, () -> CountryCodec.readHeader(newer));
+    }
+
+    @Test
+    void packedIdsRoundTripAtEveryAlignment()
+    {
+        CountryInfo[] all = CountryInfo.values();
+
+        for (int length = 0; length <= 9; length++)
+        {
+            CountryInfo[] src = new CountryInfo[length];
+            for (int i = 0; i < length; i++) { src[i] = i == 3 ? null : all[(i * 37) % all.length]; }
+
+            ByteBuffer buf = ByteBuffer.allocate(CountryCodec.packedSize(length));
+            CountryCodec.pack(src, 0, length, buf);
+            assertEquals(0, buf.remaining());
+            buf.flip();
+
+            CountryInfo[] dst = new CountryInfo[length];
+            CountryCodec.unpack(buf, dst, 0, length);
+            assertArrayEquals(src, dst);
+        }
+    }
+
+    @Test
+    void packingIsBigEndianMostSignificantBitFirst()
+    {
+        ByteBuffer buf = ByteBuffer.allocate(2);
+        CountryCodec.pack(new CountryInfo[] { CountryInfo.USA }, 0, 1, buf);
+
+        // 840 = 0b1101001000, padded with six zero bits.
+        assertArrayEquals(new byte[] { (byte) 0b11010010, 0b00000000 }, buf.array());
+    }
+}
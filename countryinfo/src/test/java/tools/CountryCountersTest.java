@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link CountryLongMap} and concurrent counting with {@link CountryCounters}.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+class CountryCountersTest
+{
+    @Test
+    void longMapCountsByCountry()
+    {
+        CountryLongMap map = new CountryLongMap();
+        map.increment(CountryInfo.JPN);
+        map.add(CountryInfo.JPN, 4);
+        map.put(CountryInfo.FRA, 2);
+
+        assertEquals(5, map.get(CountryInfo.JPN));
+        assertEquals(7, map.sum());
+        assertEquals(CountrySet.of(CountryInfo.JPN, CountryInfo.FRA), map.nonZero());
+
+        map.clear();
+        assertEquals(CountrySet.NONE, map.nonZero());
+    }
+
+    @Test
+    void everyUpdateLandsInExactlyOneSnapshot() throws InterruptedException
+    {
+        final CountryCounters counters = new CountryCounters(4);
+        final int perThread = 100000;
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < 4; t++)
+        {
+            threads.add(new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    for (int i = 0; i < perThread; i++) { counters.increment(CountryInfo.forOrdinal(i % 8)); }
+                }
+            });
+        }
+
+        for (Thread t : threads) { t.start(); }
+
+        long total = 0;
+        while (threads.get(0).isAlive() || threads.get(1).isAlive() || threads.get(2).isAlive() || threads.get(3).isAlive())
+        {
+            total += counters.snapshotAndReset().sum();
+        }
+
+        for (Thread t : threads) { t.join(); }
+        total += counters.snapshotAndReset().sum();
+
+        assertEquals(4L * perThread, total);
+        assertEquals(0, counters.snapshot().sum());
+    }
+}
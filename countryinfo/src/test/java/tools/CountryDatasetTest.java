@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * {@link CountryDataset} formats and lookups, and publishing through
+ * {@link CountryRegistry}.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+class CountryDatasetTest
+{
+    private static final CountryDataset BUILT_IN = CountryDataset.fromCountryInfo();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void lookupsAgreeWithCountryInfo()
+    {
+        for (CountryInfo ci : CountryInfo.values())
+        {
+            for (CodeScheme scheme : CodeScheme.values())
+            {
+                for (String code : scheme.codeOf(ci).split(","))
+                {
+                    if (code.isEmpty()) { continue; }
+
+                    CountryInfo expected = CountryInfo.tryForCode(scheme, code);
+                    CountryRecord found = BUILT_IN.tryForCode(scheme, code);
+
+                    assertEquals(null == expected ? null : expected.getISOa3(),
+                            null == found ? null : found.getISOa3(), scheme + " " + code);
+                    assertEquals(CountryInfo.allForCode(scheme, code).size(), BUILT_IN.allForCode(scheme, code).size());
+                }
+            }
+        }
+    }
+
+    @Test
+    void isoLookupsAcceptEveryForm()
+    {
+        assertSame(CountryInfo.AFG, BUILT_IN.tryForCode(CodeScheme.ISO_NUMERIC, "004").getCountryInfo());
+        assertSame(CountryInfo.AFG, BUILT_IN.tryForCode(CodeScheme.ISO_NUMERIC, "4").getCountryInfo());
+        assertSame(CountryInfo.JPN, BUILT_IN.tryForISO("jp").getCountryInfo());
+        assertSame(CountryInfo.JPN, BUILT_IN.tryForISO("xJPNx", 1, 4).getCountryInfo());
+        assertSame(CountryInfo.JPN, BUILT_IN.tryForISO(392).getCountryInfo());
+        assertNull(BUILT_IN.tryForCode(CodeScheme.ISO_ALPHA2, "JPN"));
+        assertNull(BUILT_IN.tryForISO(1000));
+        assertThrows(IndexOutOfBoundsException.class, () -> BUILT_IN.tryForISO("JP", 0, 3));
+    }
+
+    @Test
+    void rejectsMalformedAndDuplicateCodes()
+    {
+        CountryRecord japan = CountryRecord.of(CountryInfo.JPN);
+        CountryRecord bad = new CountryRecord("J1N", "JP", "", 392, "", "", "", "", "", "", "", "", "", "Japan", "Yes");
+
+        assertThrows(IllegalArgumentException.class, () -> new CountryDataset(1, Arrays.asList(japan, japan)));
+        assertThrows(IllegalArgumentException.class, () -> new CountryDataset(1, Arrays.asList(bad)));
+    }
+
+    @Test
+    void csvRoundTrips() throws IOException
+    {
+        StringWriter out = new StringWriter();
+        BUILT_IN.writeCsv(out);
+
+        CountryDataset read = CountryDataset.readCsv(new StringReader(out.toString()));
+
+        assertEquals(BUILT_IN.getVersion(), read.getVersion());
+        assertEquals(BUILT_IN.getRecords(), read.getRecords());
+    }
+
+    @Test
+    void snapshotRoundTrips() throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BUILT_IN.writeSnapshot(out);
+
+        CountryDataset read = CountryDataset.readSnapshot(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(BUILT_IN.getVersion(), read.getVersion());
+        assertEquals(BUILT_IN.getRecords(), read.getRecords());
+    }
+
+    @Test
+    void registryLoadsEitherFormatAndKeepsTheDatasetOnFailure() throws IOException
+    {
+        Path csv = dir.resolve("countries.csv");
+        Path snapshot = dir.resolve("countries.bin");
+        Path broken = Files.write(dir.resolve("broken.csv"), "#version=2\nnot a header\n".getBytes(StandardCharsets.UTF_8));
+
+        try (Writer out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) { BUILT_IN.writeCsv(out); }
+        try (OutputStream out = Files.newOutputStream(snapshot)) { BUILT_IN.writeSnapshot(out); }
+
+        CountryRegistry registry = new CountryRegistry(new CountryDataset(1, new ArrayList<CountryRecord>()));
+
+        assertEquals(BUILT_IN.getRecords(), registry.reload(csv).getRecords());
+        assertEquals(BUILT_IN.getRecords(), registry.reload(snapshot).getRecords());
+
+        CountryDataset before = registry.get();
+        assertThrows(IllegalArgumentException.class, () -> registry.reload(broken));
+        assertSame(before, registry.get());
+    }
+
+    @Test
+    void publishWaitsForAReloadInProgress() throws InterruptedException
+    {
+        final CountryRegistry registry = new CountryRegistry(BUILT_IN);
+        final CountryDataset published = new CountryDataset(2, BUILT_IN.getRecords());
+
+        Thread publisher = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                registry.publish(published);
+            }
+        };
+
+        // Reloads hold the registry's lock while loading; stand in for one.
+        synchronized (registry)
+        {
+            publisher.start();
+            while (publisher.getState() != Thread.State.BLOCKED) { Thread.yield(); }
+
+            assertSame(BUILT_IN, registry.get());
+        }
+
+        publisher.join();
+        assertSame(published, registry.get());
+    }
+}
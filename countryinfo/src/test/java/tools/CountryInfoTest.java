@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ISO 3166-1 lookups of {@link CountryInfo}.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+class CountryInfoTest
+{
+    @Test
+    void forISOFindsEveryCountryByEachOfItsCodes()
+    {
+        for (CountryInfo ci : CountryInfo.values())
+        {
+            assertSame(ci, CountryInfo.forISO(ci.getISOa2()));
+            assertSame(ci, CountryInfo.forISO(ci.getISOa3()));
+            assertSame(ci, CountryInfo.forISO(ci.getISONum()));
+            assertSame(ci, CountryInfo.tryForISO(ci.getISOa3().toLowerCase()));
+        }
+    }
+
+    @Test
+    void lookupsIgnoreAsciiCase()
+    {
+        assertSame(CountryInfo.JPN, CountryInfo.forISO("jP"));
+        assertSame(CountryInfo.JPN, CountryInfo.tryForISO("jpn"));
+    }
+
+    @Test
+    void missesThrowOrReturnNull()
+    {
+        assertThrows(IllegalArgumentException.class, () -> CountryInfo.forISO("ZZ"));
+        assertThrows(IllegalArgumentException.class, () -> CountryInfo.forISO(999));
+        assertThrows(IllegalArgumentException.class, () -> CountryInfo.forISO((String) null));
+
+        assertNull(CountryInfo.tryForISO("QQQ"));
+        assertNull(CountryInfo.tryForISO("J"));
+        assertNull(CountryInfo.tryForISO("JP1"));
+        assertNull(CountryInfo.tryForISO((CharSequence) null));
+        assertNull(CountryInfo.tryForISO(-1));
+        assertNull(CountryInfo.tryForISO(1000));
+    }
+
+    @Test
+    void tryForISOReadsARegion()
+    {
+        assertSame(CountryInfo.FRA, CountryInfo.tryForISO("xxFRAxx", 2, 5));
+        assertSame(CountryInfo.FRA, CountryInfo.tryForISO("xxfr", 2, 4));
+        assertThrows(IndexOutOfBoundsException.class, () -> CountryInfo.tryForISO("FR", 1, 3));
+    }
+
+    @Test
+    void numericCodesAreThreeDigits()
+    {
+        assertEquals(4, CountryInfo.AFG.getISONum());
+        assertSame(CountryInfo.AFG, CountryInfo.forISO(4));
+    }
+}
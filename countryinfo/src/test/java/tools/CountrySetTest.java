@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Set algebra, parsing and the binary form of {@link CountrySet}.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+class CountrySetTest
+{
+    private static final CountrySet FOUNDERS = CountrySet.parse("BE, DE, FR, IT, LU, NL");
+
+    @Test
+    void parseAcceptsEveryIsoForm()
+    {
+        assertEquals(CountrySet.of(CountryInfo.JPN, CountryInfo.USA, CountryInfo.FRA), CountrySet.parse("jp,USA, 250,,"));
+        assertSame(CountrySet.NONE, CountrySet.parse(" , "));
+        assertThrows(IllegalArgumentException.class, () -> CountrySet.parse("JP,XX"));
+    }
+
+    @Test
+    void parseWithASchemeAddsEveryCountrySharingACode()
+    {
+        CountrySet usa = CountrySet.parse("USA", CodeScheme.DS);
+
+        assertTrue(usa.contains(CountryInfo.USA));
+        assertTrue(usa.cardinality() > 1);
+        assertEquals(CountrySet.of(CountryInfo.NLD), CountrySet.parse("NED", CodeScheme.IOC));
+    }
+
+    @Test
+    void algebra()
+    {
+        CountrySet lux = CountrySet.of(CountryInfo.LUX);
+        CountrySet rule = FOUNDERS.difference(lux);
+
+        assertEquals(5, rule.cardinality());
+        assertFalse(rule.contains(CountryInfo.LUX));
+        assertFalse(rule.contains(null));
+        assertTrue(FOUNDERS.containsAll(rule));
+        assertSame(FOUNDERS, FOUNDERS.union(rule));
+        assertSame(rule, FOUNDERS.intersection(rule));
+        assertSame(FOUNDERS, FOUNDERS.difference(CountrySet.of(CountryInfo.JPN)));
+        assertEquals(1, FOUNDERS.intersectionCardinality(lux));
+        assertEquals(CountryInfo.values().length, CountrySet.ALL.cardinality());
+        assertSame(CountrySet.NONE, CountrySet.ALL.complement());
+        assertEquals(CountrySet.ALL, FOUNDERS.union(FOUNDERS.complement()));
+    }
+
+    @Test
+    void iteratesInOrdinalOrder()
+    {
+        List<CountryInfo> listed = new ArrayList<>();
+        for (CountryInfo ci : FOUNDERS) { listed.add(ci); }
+
+        assertEquals(Arrays.asList(CountryInfo.BEL, CountryInfo.DEU, CountryInfo.FRA, CountryInfo.ITA,
+                CountryInfo.LUX, CountryInfo.NLD), listed);
+        assertEquals("[BEL, DEU, FRA, ITA, LUX, NLD]", FOUNDERS.toString());
+    }
+
+    @Test
+    void binaryFormRoundTrips()
+    {
+        for (CountrySet set : Arrays.asList(CountrySet.NONE, FOUNDERS, CountrySet.INDEPENDENT, CountrySet.ALL))
+        {
+            assertEquals(set, CountrySet.fromBytes(set.toBytes()));
+            assertEquals(set, CountrySet.fromBase64(set.toBase64()));
+            assertEquals(48, set.toBase64().length());
+        }
+    }
+
+    @Test
+    void binaryFormIsIndexedByStableByteIds()
+    {
+        ByteBuffer bytes = ByteBuffer.wrap(CountrySet.of(CountryInfo.ABW, CountryInfo.ZWE).toBytes());
+
+        assertEquals(CountryCodec.ID_TABLE_VERSION, bytes.getInt());
+
+        int abw = CountryCodec.toByteId(CountryInfo.ABW) & 0xFF;
+        int zwe = CountryCodec.toByteId(CountryInfo.ZWE) & 0xFF;
+        long[] words = { bytes.getLong(), bytes.getLong(), bytes.getLong(), bytes.getLong() };
+
+        assertEquals(1L << abw, words[abw >>> 6]);
+        assertEquals(1L << zwe, words[zwe >>> 6]);
+    }
+
+    @Test
+    void decodingRejectsUnknownData()
+    {
+        assertThrows(IllegalArgumentException.class, () -> CountrySet.fromBytes(new byte[CountrySet.BINARY_SIZE - 1]));
+
+        ByteBuffer newer = ByteBuffer.allocate(CountrySet.BINARY_SIZE).putInt(CountryCodec.ID_TABLE_VERSION + 1);
+        assertThrows(IllegalArgumentException.class, () -> CountrySet.fromBytes(newer.array()));
+
+        ByteBuffer nullId = ByteBuffer.allocate(CountrySet.BINARY_SIZE).putInt(CountryCodec.ID_TABLE_VERSION).putLong(1);
+        assertThrows(IllegalArgumentException.class, () -> CountrySet.fromBytes(nullId.array()));
+
+        ByteBuffer unassigned = ByteBuffer.allocate(CountrySet.BINARY_SIZE).putInt(CountryCodec.ID_TABLE_VERSION);
+        unassigned.putLong(4 + 3 * 8, Long.MIN_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> CountrySet.fromBytes(unassigned.array()));
+
+        // Sets written under an older id table still decode.
+        ByteBuffer older = ByteBuffer.wrap(FOUNDERS.toBytes()).putInt(0, CountryCodec.ID_TABLE_VERSION - 1);
+        assertEquals(FOUNDERS, CountrySet.fromBytes(older.array()));
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Columns, the shared dictionary and the file form of {@link CountryTable}.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+class CountryTableTest
+{
+    private static final CountryTable TABLE = CountryTable.fromCountryInfo();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rowsMatchTheConstants()
+    {
+        assertMatchesConstants(TABLE);
+        assertEquals(CountryInfo.VERSION, TABLE.getVersion());
+    }
+
+    @Test
+    void numericCodesArePadded()
+    {
+        int row = CountryInfo.AFG.ordinal();
+
+        assertEquals(4, TABLE.getInt(CountryTable.Column.ISO_NUMERIC, row));
+        assertEquals("004", TABLE.getString(CountryTable.Column.ISO_NUMERIC, row));
+        assertEquals(CodeScheme.ISO_NUMERIC.code(CountryInfo.AFG), TABLE.getString(CountryTable.Column.ISO_NUMERIC, row));
+    }
+
+    @Test
+    void dictionaryIsSharedAndSorted()
+    {
+        int yes = TABLE.findId("Yes");
+        IntBuffer independent = TABLE.column(CountryTable.Column.INDEPENDENT);
+
+        assertEquals("Yes", TABLE.decode(yes));
+        assertEquals(yes, independent.get(CountryInfo.FRA.ordinal()));
+        assertEquals(-1, TABLE.findId("no such string"));
+
+        // "FRA" is the same id as alpha-3, IOC and FIFA code.
+        int fra = TABLE.findId("FRA");
+        int row = CountryInfo.FRA.ordinal();
+        assertEquals(fra, TABLE.getInt(CountryTable.Column.ISO_ALPHA3, row));
+        assertEquals(fra, TABLE.getInt(CountryTable.Column.IOC, row));
+
+        for (int id = 1; id < TABLE.getDictionarySize(); id++)
+        {
+            assertTrue(compareUtf8(TABLE.decode(id - 1), TABLE.decode(id)) < 0, TABLE.decode(id));
+            assertEquals(id, TABLE.findId(TABLE.decode(id)));
+        }
+
+        ByteBuffer utf8 = TABLE.utf8(yes);
+        byte[] bytes = new byte[utf8.remaining()];
+        utf8.get(bytes);
+        assertEquals("Yes", new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void mapsWhatItWrites() throws IOException
+    {
+        Path file = dir.resolve("countries.tbl");
+        TABLE.write(file);
+
+        assertMatchesConstants(CountryTable.map(file));
+    }
+
+    @Test
+    void wrapsFromThePosition()
+    {
+        ByteBuffer all = TABLE.toByteBuffer();
+        ByteBuffer shifted = ByteBuffer.allocate(all.remaining() + 7);
+        shifted.position(7);
+        shifted.put(all);
+        shifted.position(7);
+
+        assertMatchesConstants(CountryTable.wrap(shifted));
+        assertThrows(IllegalArgumentException.class, () -> CountryTable.wrap(ByteBuffer.allocate(64)));
+    }
+
+    @Test
+    void buildsFromADataset()
+    {
+        CountryDataset dataset = CountryDataset.fromCountryInfo();
+        CountryTable table = CountryTable.of(dataset);
+
+        assertEquals(dataset.getRecords().size(), table.size());
+        assertEquals(dataset.getRecords().get(0).getCountryName(), table.getString(CountryTable.Column.NAME, 0));
+    }
+
+    private static void assertMatchesConstants(CountryTable table)
+    {
+        CountryInfo[] values = CountryInfo.values();
+        assertEquals(values.length, table.size());
+
+        for (CountryInfo ci : values)
+        {
+            int row = ci.ordinal();
+
+            assertEquals(ci.getISOa3(), table.getString(CountryTable.Column.ISO_ALPHA3, row));
+            assertEquals(ci.getISOa2(), table.getString(CountryTable.Column.ISO_ALPHA2, row));
+            assertEquals(ci.getISONum(), table.getInt(CountryTable.Column.ISO_NUMERIC, row));
+            assertEquals(ci.getCountryName(), table.getString(CountryTable.Column.NAME, row));
+            assertEquals(ci.getDial(), table.getString(CountryTable.Column.DIAL, row));
+            assertEquals(ci.getIndependent(), table.getString(CountryTable.Column.INDEPENDENT, row));
+        }
+    }
+
+    private static int compareUtf8(String a, String b)
+    {
+        byte[] x = a.getBytes(StandardCharsets.UTF_8), y = b.getBytes(StandardCharsets.UTF_8);
+
+        for (int i = 0; i < Math.min(x.length, y.length); i++)
+        {
+            if (x[i] != y[i]) { return (x[i] & 0xFF) - (y[i] & 0xFF); }
+        }
+
+        return x.length - y.length;
+    }
+}
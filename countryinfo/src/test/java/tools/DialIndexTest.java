@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Longest-prefix matching of phone numbers by {@link DialIndex} and
+ * {@link CountryInfo#forPhoneNumber(CharSequence)}.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+class DialIndexTest
+{
+    @Test
+    void longestPrefixWins()
+    {
+        assertEquals(Collections.singletonList(CountryInfo.AIA), CountryInfo.forPhoneNumber("+1 264 497 1234"));
+
+        List<CountryInfo> nanp = CountryInfo.forPhoneNumber("+1 212 555 0100");
+        assertTrue(nanp.contains(CountryInfo.USA));
+        assertTrue(nanp.contains(CountryInfo.CAN));
+        assertFalse(nanp.contains(CountryInfo.AIA));
+    }
+
+    @Test
+    void sharedCodeReturnsEveryCandidate()
+    {
+        assertEquals(Arrays.asList(CountryInfo.AUS, CountryInfo.CCK, CountryInfo.CXR),
+                CountryInfo.forPhoneNumber("0061 2 9876 5432"));
+        assertEquals(Arrays.asList(CountryInfo.KAZ, CountryInfo.RUS), CountryInfo.forPhoneNumber("+7 495 123"));
+    }
+
+    @Test
+    void skipsPrefixAndSeparators()
+    {
+        List<CountryInfo> aia = Collections.singletonList(CountryInfo.AIA);
+
+        assertEquals(aia, CountryInfo.forPhoneNumber("+1264"));
+        assertEquals(aia, CountryInfo.forPhoneNumber("001264"));
+        assertEquals(aia, CountryInfo.forPhoneNumber("  +1 (264) 497-1234"));
+        assertEquals(aia, CountryInfo.forPhoneNumber("+1-264.497/1234"));
+        assertEquals(aia, CountryInfo.forPhoneNumber("1264"));
+
+        // Matching stops at the first other character.
+        assertEquals(CountryInfo.forPhoneNumber("+1"), CountryInfo.forPhoneNumber("+1x264"));
+    }
+
+    @Test
+    void indexesEveryCommaSeparatedCode()
+    {
+        for (String number : new String[] { "+1 809", "+1 829", "+1 849" })
+        {
+            assertEquals(Collections.singletonList(CountryInfo.DOM), CountryInfo.forPhoneNumber(number), number);
+        }
+
+        CountryRecord a = record("AAA", "1-809,44"), b = record("BBB", "44");
+        DialIndex<CountryRecord> index = new DialIndex<>(Arrays.asList(a, b));
+
+        assertEquals(Collections.singletonList(a), index.match("+1 809 555"));
+        assertEquals(Arrays.asList(a, b), index.match("+44 20"));
+        assertTrue(index.match("+1 808").isEmpty());
+    }
+
+    @Test
+    void emptyWithoutADialCode()
+    {
+        assertTrue(CountryInfo.forPhoneNumber(null).isEmpty());
+        assertTrue(CountryInfo.forPhoneNumber("").isEmpty());
+        assertTrue(CountryInfo.forPhoneNumber("+").isEmpty());
+        assertTrue(CountryInfo.forPhoneNumber("00").isEmpty());
+        assertTrue(CountryInfo.forPhoneNumber("  ").isEmpty());
+        assertTrue(CountryInfo.forPhoneNumber("phone").isEmpty());
+        assertTrue(CountryInfo.forPhoneNumber("+abc").isEmpty());
+    }
+
+    @Test
+    void resultsAreImmutable()
+    {
+        List<CountryInfo> all = CountryInfo.forPhoneNumber("+61");
+
+        assertThrows(UnsupportedOperationException.class, () -> all.add(CountryInfo.FRA));
+    }
+
+    private static CountryRecord record(String isoA3, String dial)
+    {
+        return new CountryRecord(isoA3, "", "", 0, "", "", "", "", "", "", "", "", dial, isoA3, "");
+    }
+}
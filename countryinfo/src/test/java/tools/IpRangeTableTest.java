@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * CSV parsing, lookups and the mapped binary form of {@link IpRangeTable}.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+class IpRangeTableTest
+{
+    @TempDir
+    Path dir;
+
+    private static final String CSV = String.join("\n",
+            "# start,end,country",
+            "1.0.0.0,1.0.0.255,AU",
+            "\"81.2.69.0\",\"81.2.69.255\",\"GBR\"",
+            "2a02:26f0::,2a02:26f0:ffff:ffff:ffff:ffff:ffff:ffff,DE",
+            "16777472,16777727,CN",
+            "5.0.0.0,5.0.0.255,EU",
+            "::ffff:0:0,::ffff:ffff:ffff,US",
+            "");
+
+    @Test
+    void readsCsv() throws IOException
+    {
+        IpRangeTable table = IpRangeTable.readCsv(new StringReader(CSV.replace("::ffff:0:0,::ffff:ffff:ffff,US\n", "")));
+
+        assertEquals(3, table.getIPv4RangeCount());
+        assertEquals(1, table.getIPv6RangeCount());
+        assertEquals(1, table.getSkippedRows());
+
+        assertEquals(CountryInfo.AUS, table.forAddress("1.0.0.7"));
+        assertEquals(CountryInfo.CHN, table.forAddress("1.0.1.0"));
+        assertEquals(CountryInfo.GBR, table.forAddress("81.2.69.160"));
+        assertEquals(CountryInfo.GBR, table.forAddress("::ffff:81.2.69.160"));
+        assertEquals(CountryInfo.DEU, table.forAddress("2a02:26f0::1"));
+        assertNull(table.forAddress("1.0.2.0"));
+        assertNull(table.forAddress("5.0.0.1"));
+        assertNull(table.forAddress("2a02:26ef::1"));
+        assertNull(table.forAddress("not an address"));
+    }
+
+    @Test
+    void foldsMappedRowsIntoIPv4() throws IOException
+    {
+        IpRangeTable table = IpRangeTable.readCsv(new StringReader(CSV.replace("1.0.0.0,1.0.0.255,AU\n", "")
+                .replace("\"81.2.69.0\",\"81.2.69.255\",\"GBR\"\n", "").replace("16777472,16777727,CN\n", "")));
+
+        assertEquals(1, table.getIPv4RangeCount());
+        assertEquals(1, table.getIPv6RangeCount());
+        assertEquals(CountryInfo.USA, table.forAddress("8.8.8.8"));
+        assertEquals(CountryInfo.USA, table.forAddress("::ffff:8.8.8.8"));
+        assertEquals(CountryInfo.USA, table.forIPv6(0, 0xFFFF00000000L));
+        assertNull(table.forAddress("::1"));
+    }
+
+    @Test
+    void rejectsRangesPartlyInsideTheMappedBlock()
+    {
+        assertThrows(IllegalArgumentException.class,
+                () -> IpRangeTable.readCsv(new StringReader("::ffff:ff00:0,::1:0:0:0,US")));
+    }
+
+    @Test
+    void rejectsOverlapsAndMixedRanges()
+    {
+        assertThrows(IllegalArgumentException.class,
+                () -> IpRangeTable.readCsv(new StringReader("1.0.0.0,1.0.0.255,AU\n1.0.0.128,1.0.1.0,CN")));
+        assertThrows(IllegalArgumentException.class,
+                () -> IpRangeTable.readCsv(new StringReader("1.0.0.0,::1,AU")));
+        assertThrows(IllegalArgumentException.class,
+                () -> IpRangeTable.readCsv(new StringReader("1.0.0.0,AU")));
+    }
+
+    @Test
+    void mappedTableMatchesALinearScan() throws IOException
+    {
+        Random random = new Random(42);
+        CountryInfo[] countries = CountryInfo.values();
+        List<long[]> v4 = new ArrayList<>();
+        List<long[]> v6 = new ArrayList<>();
+        StringBuilder csv = new StringBuilder();
+
+        // Disjoint ranges with random gaps, over the whole unsigned space.
+        for (long start = random.nextInt(1 << 20); start < 0xFFFFFFFFL - (1 << 24); )
+        {
+            long end = start + random.nextInt(1 << 22);
+            CountryInfo ci = countries[random.nextInt(countries.length)];
+
+            v4.add(new long[] { start, end, ci.ordinal() });
+            csv.append(start).append(',').append(end).append(',').append(ci.getISOa2()).append('\n');
+            start = end + 1 + random.nextInt(1 << 22);
+        }
+
+        for (long hi = 0x2000000000000000L; hi < 0x3000000000000000L; )
+        {
+            long end = hi + random.nextInt(1 << 30);
+            CountryInfo ci = countries[random.nextInt(countries.length)];
+
+            v6.add(new long[] { hi, end, ci.ordinal() });
+            csv.append(format6(hi, 0)).append(',').append(format6(end, -1L)).append(',').append(ci.getISOa3()).append('\n');
+            hi = end + 1 + ((long) random.nextInt(1 << 30) << 20);
+        }
+
+        Path file = dir.resolve("ip.bin");
+        IpRangeTable.readCsv(new StringReader(csv.toString())).write(file);
+        IpRangeTable table = IpRangeTable.map(file);
+
+        assertEquals(v4.size(), table.getIPv4RangeCount());
+        assertEquals(v6.size(), table.getIPv6RangeCount());
+
+        for (int i = 0; i < 100_000; i++)
+        {
+            long address = random.nextInt() & 0xFFFFFFFFL;
+            assertEquals(scan(v4, address), table.forIPv4((int) address), Long.toHexString(address));
+
+            long hi = 0x2000000000000000L + (random.nextLong() >>> 4);
+            assertEquals(scan(v6, hi), table.forIPv6(hi, random.nextLong()), Long.toHexString(hi));
+        }
+
+        // The edges of every range.
+        for (long[] r : v4)
+        {
+            assertEquals(CountryInfo.forOrdinal((int) r[2]), table.forIPv4((int) r[0]));
+            assertEquals(CountryInfo.forOrdinal((int) r[2]), table.forIPv4((int) r[1]));
+            assertEquals(scan(v4, r[1] + 1), table.forIPv4((int) (r[1] + 1)));
+        }
+    }
+
+    private static CountryInfo scan(List<long[]> ranges, long key)
+    {
+        for (long[] r : ranges)
+        {
+            if (Long.compareUnsigned(r[0], key) <= 0 && Long.compareUnsigned(key, r[1]) <= 0)
+            {
+                return CountryInfo.forOrdinal((int) r[2]);
+            }
+        }
+
+        return null;
+    }
+
+    private static String format6(long hi, long lo)
+    {
+        return String.format("%x:%x:%x:%x:%x:%x:%x:%x",
+                hi >>> 48, hi >>> 32 & 0xFFFF, hi >>> 16 & 0xFFFF, hi & 0xFFFF,
+                lo >>> 48, lo >>> 32 & 0xFFFF, lo >>> 16 & 0xFFFF, lo & 0xFFFF);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Lookups with {@link LookupStats} disabled, the default. The build runs this
+ * class on its own with {@code -Dcountryinfo.stats=false}, since the property
+ * is read once per JVM.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+class LookupStatsDisabledTest
+{
+    @Test
+    void disabledByTheBuild()
+    {
+        assertFalse(LookupStats.ENABLED);
+    }
+
+    @Test
+    void lookupsRecordNothing()
+    {
+        LookupStats.reset();
+
+        assertSame(CountryInfo.FRA, CountryInfo.tryForISO("FR"));
+        assertSame(CountryInfo.FRA, CountryInfo.tryForISO("FRA"));
+        assertNull(CountryInfo.tryForISO("XX"));
+        assertSame(CountryInfo.DEU, CountryInfo.forCode(CodeScheme.IOC, "GER"));
+        assertThrows(IllegalArgumentException.class, () -> CountryInfo.forCode(CodeScheme.IOC, "XXX"));
+        assertNull(CountryInfo.tryForCode(CodeScheme.FIPS, "XX"));
+        assertSame(CountryInfo.BEL, CountryInfo.tryForHostname("www.example.be"));
+
+        LookupStats.Snapshot s = LookupStats.snapshot();
+        assertEquals(0, s.getTotalHits());
+        assertEquals(0, s.getTotalMisses());
+        assertEquals(0, s.getHits(LookupStats.Method.TRY_FOR_ISO, CodeScheme.ISO_ALPHA2));
+        assertEquals(0, s.getMisses(LookupStats.Method.TRY_FOR_ISO, CodeScheme.ISO_ALPHA2));
+        assertTrue(s.getTopInvalid().isEmpty());
+    }
+}
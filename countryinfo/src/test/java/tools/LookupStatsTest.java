@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Counting, resetting and the library's unrecorded internal lookups in
+ * {@link LookupStats}. Run with {@code -Dcountryinfo.stats=true}, as the
+ * build does.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+class LookupStatsTest
+{
+    @Test
+    void enabledByTheBuild()
+    {
+        assertTrue(LookupStats.ENABLED);
+    }
+
+    @Test
+    void countsHitsAndMisses()
+    {
+        synchronized (LookupStatsTest.class)
+        {
+            LookupStats.reset();
+
+            CountryInfo.tryForISO("FR");
+            CountryInfo.tryForISO("FRA");
+            CountryInfo.tryForISO("XX");
+
+            LookupStats.Snapshot s = LookupStats.snapshot();
+            assertEquals(1, s.getHits(LookupStats.Method.TRY_FOR_ISO, CodeScheme.ISO_ALPHA2));
+            assertEquals(1, s.getHits(LookupStats.Method.TRY_FOR_ISO, CodeScheme.ISO_ALPHA3));
+            assertEquals(1, s.getMisses(LookupStats.Method.TRY_FOR_ISO, CodeScheme.ISO_ALPHA2));
+            assertEquals("XX", s.getTopInvalid().get(0).getValue());
+        }
+    }
+
+    @Test
+    void internalLookupsAreNotCounted()
+    {
+        synchronized (LookupStatsTest.class)
+        {
+            LookupStats.reset();
+
+            CountrySet.parse("BE, DE, FR, 380");
+            CountrySet.fromBytes(CountrySet.parse("LU, NL").toBytes());
+            BulkResolver.DEFAULT.resolve(new CharSequence[] { "GB", "XX" }, new short[2], BulkResolver.newMissBitmap(2));
+            CountryCodec.fromNumericId(250);
+            new CountryRecord("FRA", "FR", ".fr", 250, "", "", "", "", "", "", "", "", "", "France", "Yes");
+
+            LookupStats.Snapshot s = LookupStats.snapshot();
+            assertEquals(0, s.getTotalHits());
+            assertEquals(0, s.getTotalMisses());
+        }
+    }
+
+    @Test
+    void resetKeepsCountsTakenAfterIt() throws Exception
+    {
+        synchronized (LookupStatsTest.class)
+        {
+            final CountDownLatch counted = new CountDownLatch(1);
+            final CountDownLatch resetDone = new CountDownLatch(1);
+
+            LookupStats.reset();
+
+            // A live thread counts on both sides of a reset taken by another
+            // thread: only the counts after it may be reported.
+            Thread worker = new Thread(() ->
+            {
+                for (int i = 0; i < 1000; i++) { CountryInfo.tryForISO("DE"); }
+                counted.countDown();
+
+                try { resetDone.await(); } catch (InterruptedException e) { return; }
+                for (int i = 0; i < 250; i++) { CountryInfo.tryForISO("DE"); }
+            });
+            worker.start();
+
+            counted.await();
+            assertEquals(1000, LookupStats.snapshot().getTotalHits());
+            LookupStats.reset();
+            assertEquals(0, LookupStats.snapshot().getTotalHits());
+            resetDone.countDown();
+            worker.join();
+
+            assertEquals(250, LookupStats.snapshot().getHits(LookupStats.Method.TRY_FOR_ISO, CodeScheme.ISO_ALPHA2));
+        }
+    }
+}
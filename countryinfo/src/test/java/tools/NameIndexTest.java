@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Name lookups and autocompletion over {@link NameIndex}.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+class NameIndexTest
+{
+    @Test
+    void exactLookupIgnoresCaseDiacriticsAndPunctuation()
+    {
+        assertSame(CountryInfo.CIV, CountryInfo.forName("Côte d'Ivoire"));
+        assertSame(CountryInfo.CIV, CountryInfo.forName("cote d ivoire"));
+        assertSame(CountryInfo.CIV, CountryInfo.forName("  COTE-D'IVOIRE. "));
+        assertSame(CountryInfo.ALA, CountryInfo.tryForName("aland"));
+        assertSame(CountryInfo.KOR, CountryInfo.tryForName("Korea South"));
+    }
+
+    @Test
+    void exactLookupNeedsTheWholeName()
+    {
+        assertNull(CountryInfo.tryForName("Korea"));
+        assertNull(CountryInfo.tryForName("Germany Federal"));
+        assertNull(CountryInfo.tryForName(""));
+        assertNull(CountryInfo.tryForName(null));
+        assertThrows(IllegalArgumentException.class, () -> CountryInfo.forName("Atlantis"));
+    }
+
+    @Test
+    void everyNameFindsItsCountry()
+    {
+        for (CountryInfo ci : CountryInfo.values())
+        {
+            assertSame(ci, CountryInfo.forName(ci.getCountryName()), ci.getCountryName());
+        }
+    }
+
+    @Test
+    void searchRanksNameStartsBeforeLaterWords()
+    {
+        assertEquals(Arrays.asList(CountryInfo.COD, CountryInfo.COG), CountryInfo.searchByName("congo", 5));
+        assertEquals(Arrays.asList(CountryInfo.PRK, CountryInfo.KOR), CountryInfo.searchByName("KOREA", 5));
+        assertEquals(Collections.singletonList(CountryInfo.ALA), CountryInfo.searchByName("ÅLA", 5));
+
+        // A later word of the name matches too.
+        assertTrue(CountryInfo.searchByName("kinshasa", 5).contains(CountryInfo.COD));
+    }
+
+    @Test
+    void searchHonoursTheLimit()
+    {
+        assertEquals(1, CountryInfo.searchByName("congo", 1).size());
+        assertTrue(CountryInfo.searchByName("congo", 0).isEmpty());
+        assertTrue(CountryInfo.searchByName("", 5).isEmpty());
+        assertTrue(CountryInfo.searchByName(null, 5).isEmpty());
+    }
+
+    @Test
+    void trailingSeparatorAsksForAWholeWord()
+    {
+        NameIndex<CountryRecord> index = new NameIndex<>(Arrays.asList(record("Congo"), record("Congolese Republic")));
+
+        assertEquals(2, index.search("congo", 5).size());
+        assertEquals(Collections.singletonList(index.get("congo")), index.search("congo ", 5));
+    }
+
+    @Test
+    void foldCollapsesSeparators()
+    {
+        char[] out = new char[16];
+        int length = NameIndex.fold("--Åland  Islands-", out);
+
+        assertEquals("aland islands ", new String(out, 0, length));
+    }
+
+    private static CountryRecord record(String name)
+    {
+        return new CountryRecord("", "", "", 0, "", "", "", "", "", "", "", "", "", name, "");
+    }
+}
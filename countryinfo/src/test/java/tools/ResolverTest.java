@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Input classification and caching of {@link Resolver}.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+class ResolverTest
+{
+    private final Resolver uncached = new Resolver(0);
+
+    @Test
+    void resolvesEachShape()
+    {
+        assertEquals(CountryInfo.JPN, uncached.resolve("jp").getCountry());
+        assertEquals(CountryInfo.JPN, uncached.resolve("JPN").getCountry());
+        assertEquals(CountryInfo.JPN, uncached.resolve("392").getCountry());
+        assertEquals(CountryInfo.JPN, uncached.resolve("Japan").getCountry());
+        assertEquals(CountryInfo.JPN, uncached.resolve("+81").getCountry());
+        assertEquals(CountryInfo.JPN, uncached.resolve("www.example.jp").getCountry());
+        assertEquals(CountryInfo.NLD, uncached.resolve("NED").getCountry());
+        assertEquals(CountryInfo.AFG, uncached.resolve("4").getCountry());
+
+        assertEquals(Resolution.Source.CODE, uncached.resolve("JPN").getSource());
+        assertEquals(CodeScheme.IOC, uncached.resolve("NED").getScheme());
+        assertEquals(Resolution.Source.PHONE_NUMBER, uncached.resolve("+81").getSource());
+    }
+
+    @Test
+    void unmatchedInputResolvesToNone()
+    {
+        assertSame(Resolution.NONE, uncached.resolve(null));
+        assertSame(Resolution.NONE, uncached.resolve("   "));
+        assertFalse(uncached.resolve("12a!").isResolved());
+    }
+
+    @Test
+    void cacheIsKeyedByNormalizedInput()
+    {
+        Resolver resolver = new Resolver(64);
+
+        Resolution first = resolver.resolve(" jp ");
+        assertSame(first, resolver.resolve("JP"));
+        assertSame(first, resolver.resolve(new StringBuilder("Jp\t")));
+
+        assertEquals(1, resolver.getCacheSize());
+        assertEquals(2, resolver.getCacheHits());
+        assertEquals(1, resolver.getCacheMisses());
+
+        // Longer input keeps its case in the key.
+        resolver.resolve("Japan");
+        resolver.resolve("JAPAN");
+        assertEquals(3, resolver.getCacheSize());
+    }
+
+    @Test
+    void cachedAndUncachedAgree()
+    {
+        Resolver cached = new Resolver(16);
+
+        for (String s : new String[] { "de", "DEU", "276", "Germany", "+49", "x@mail.de", "GER", "Ger", "nowhere" })
+        {
+            Resolution expected = uncached.resolve(s);
+
+            for (int i = 0; i < 2; i++)
+            {
+                Resolution r = cached.resolve(s);
+                assertEquals(expected.getSource(), r.getSource(), s);
+                assertEquals(expected.getCountry(), r.getCountry(), s);
+                assertEquals(expected.getCandidates(), r.getCandidates(), s);
+            }
+        }
+    }
+
+    @Test
+    void rejectsNegativeCacheSize()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new Resolver(-1));
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Parsing of {@link Sovereignty} statuses and the sovereignty graph of
+ * {@link SovereigntyIndex}.
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+class SovereigntyTest
+{
+    @Test
+    void parsesEachStatus()
+    {
+        assertEquals(Sovereignty.INDEPENDENT, Sovereignty.parse("Yes"));
+        assertEquals(Sovereignty.PART_OF, Sovereignty.parse("Part of NL"));
+        assertEquals(Sovereignty.TERRITORY_OF, Sovereignty.parse("Territory of GB"));
+        assertEquals(Sovereignty.TERRITORY_OF, Sovereignty.parse("Territories of US"));
+        assertEquals(Sovereignty.ASSOCIATED_WITH, Sovereignty.parse("Associated with NZ"));
+        assertEquals(Sovereignty.COMMONWEALTH_OF, Sovereignty.parse("Commonwealth of US"));
+        assertEquals(Sovereignty.CROWN_DEPENDENCY_OF, Sovereignty.parse("Crown dependency of GB"));
+        assertEquals(Sovereignty.INTERNATIONAL, Sovereignty.parse("International"));
+        assertEquals(Sovereignty.IN_CONTENTION, Sovereignty.parse("In contention"));
+
+        assertEquals(Sovereignty.UNKNOWN, Sovereignty.parse(""));
+        assertEquals(Sovereignty.UNKNOWN, Sovereignty.parse("Part of "));
+        assertEquals(Sovereignty.UNKNOWN, Sovereignty.parse("Maybe"));
+
+        assertEquals("NL", Sovereignty.reference("Part of NL"));
+        assertEquals("US", Sovereignty.reference(" Territories of US "));
+        assertNull(Sovereignty.reference("Yes"));
+        assertNull(Sovereignty.reference("International"));
+    }
+
+    @Test
+    void resolvesSovereigns()
+    {
+        assertEquals(Sovereignty.PART_OF, CountryInfo.CUW.getSovereignty());
+        assertEquals(CountryInfo.NLD, CountryInfo.CUW.getSovereign());
+        assertEquals(CountryInfo.GBR, CountryInfo.BMU.getSovereign());
+        assertEquals(CountryInfo.NZL, CountryInfo.COK.getSovereign());
+        assertEquals(Sovereignty.INDEPENDENT, CountryInfo.FRA.getSovereignty());
+        assertNull(CountryInfo.FRA.getSovereign());
+        assertEquals(Sovereignty.INTERNATIONAL, CountryInfo.ATA.getSovereignty());
+        assertNull(CountryInfo.ATA.getSovereign());
+    }
+
+    @Test
+    void listsDependents()
+    {
+        CountrySet us = CountryInfo.USA.getDependents();
+
+        assertEquals(CountrySet.parse("ASM, GUM, MNP, PRI, UMI, VIR"), us);
+        assertTrue(CountryInfo.FRA.getDependents().contains(CountryInfo.REU));
+        assertTrue(CountryInfo.ATA.getDependents().isEmpty());
+
+        Iterator<CountryInfo> it = us.iterator();
+        it.next();
+        assertThrows(UnsupportedOperationException.class, it::remove);
+        assertEquals(6, us.cardinality());
+    }
+
+    @Test
+    void checksDependency()
+    {
+        assertTrue(CountryInfo.PRI.isDependencyOf(CountryInfo.USA));
+        assertFalse(CountryInfo.PRI.isDependencyOf(CountryInfo.GBR));
+        assertFalse(CountryInfo.FRA.isDependencyOf(CountryInfo.USA));
+        assertFalse(CountryInfo.USA.isDependencyOf(CountryInfo.PRI));
+        assertFalse(CountryInfo.PRI.isDependencyOf(null));
+    }
+
+    @Test
+    void shippedDataIsConsistent()
+    {
+        assertEquals(0, CountryInfo.sovereigntyIssues().size(), CountryInfo.sovereigntyIssues().toString());
+    }
+
+    @Test
+    void reportsBadReferences()
+    {
+        CountryInfo[] values = CountryInfo.values();
+        String[] independent = new String[values.length];
+        for (CountryInfo ci : values) { independent[ci.ordinal()] = ci.getIndependent(); }
+
+        independent[CountryInfo.BMU.ordinal()] = "Territory of XX";
+        independent[CountryInfo.CUW.ordinal()] = "Sort of NL";
+        independent[CountryInfo.ABW.ordinal()] = "Part of ABW";
+        independent[CountryInfo.REU.ordinal()] = "Part of GP";
+
+        SovereigntyIndex index = new SovereigntyIndex(values, independent);
+        List<String> issues = index.issues();
+
+        assertEquals(4, issues.size(), issues.toString());
+        assertTrue(issues.get(0).startsWith("ABW: "), issues.toString());
+        assertTrue(issues.contains("BMU: \"Territory of XX\" refers to unknown country XX"), issues.toString());
+        assertTrue(issues.contains("CUW: unrecognized status \"Sort of NL\""), issues.toString());
+        assertTrue(issues.contains("REU: sovereign GLP is not independent (\"Part of FR\")"), issues.toString());
+
+        assertNull(index.sovereign(CountryInfo.BMU));
+        assertSame(Sovereignty.UNKNOWN, index.status(CountryInfo.CUW));
+        assertNull(index.sovereign(CountryInfo.ABW));
+        assertEquals(CountryInfo.GLP, index.sovereign(CountryInfo.REU));
+        assertFalse(index.dependents(CountryInfo.GBR).contains(CountryInfo.BMU));
+    }
+}
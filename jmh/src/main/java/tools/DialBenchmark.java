@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@link CountryInfo#forPhoneNumber(CharSequence)} against a
+ * naive longest-prefix scan over {@code values()}.
+ *
+ * <pre>
+ * java -jar jmh/target/benchmarks.jar DialBenchmark -prof gc
+ * </pre>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DialBenchmark
+{
+    @Param({ "1.0" })
+    double zipf;
+
+    private String[] numbers;
+    private int cursor;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(Inputs.SEED);
+        CountryInfo[] drawn = Inputs.countries(Inputs.SIZE, zipf, random);
+        numbers = new String[Inputs.SIZE];
+
+        for (int i = 0; i < numbers.length; i++)
+        {
+            String[] dials = drawn[i].getDial().split(",");
+            StringBuilder sb = new StringBuilder(random.nextBoolean() ? "+" : "00");
+            sb.append(dials[random.nextInt(dials.length)].replace('-', ' ')).append(' ');
+
+            for (int j = 0; j < 9; j++) { sb.append((char) ('0' + random.nextInt(10))); }
+
+            numbers[i] = sb.toString();
+        }
+    }
+
+    @Benchmark
+    public int forPhoneNumber()
+    {
+        return CountryInfo.forPhoneNumber(numbers[cursor = Inputs.next(cursor)]).size();
+    }
+
+    @Benchmark
+    public int scanValuesByDial()
+    {
+        return scan(numbers[cursor = Inputs.next(cursor)]).size();
+    }
+
+    /**
+     * The straightforward approach: strip the number to digits and compare it
+     * against every dial code of every country, keeping the longest match.
+     */
+    static List<CountryInfo> scan(String number)
+    {
+        StringBuilder digits = new StringBuilder();
+
+        for (int i = 0; i < number.length(); i++)
+        {
+            char c = number.charAt(i);
+            if (c >= '0' && c <= '9') { digits.append(c); }
+        }
+
+        String d = number.startsWith("00") ? digits.substring(2) : digits.toString();
+        List<CountryInfo> best = new ArrayList<>();
+        int bestLength = 0;
+
+        for (CountryInfo ci : CountryInfo.values())
+        {
+            for (String dial : ci.getDial().split(","))
+            {
+                String prefix = dial.replace("-", "");
+                if (prefix.isEmpty() || !d.startsWith(prefix) || prefix.length() < bestLength) { continue; }
+
+                if (prefix.length() > bestLength)
+                {
+                    best.clear();
+                    bestLength = prefix.length();
+                }
+
+                best.add(ci);
+            }
+        }
+
+        return best.isEmpty() ? Collections.<CountryInfo>emptyList() : best;
+    }
+}
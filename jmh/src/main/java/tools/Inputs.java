@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.util.Random;
+
+/**
+ * Input generation shared by the benchmarks: countries drawn with
+ * Zipf-distributed popularity, a share of invalid inputs, and random case.
+ *
+ * <p>
+ * Each benchmark state generates {@link #SIZE} inputs once per trial and
+ * walks them with {@link #next(int)}, one input per invocation. The Zipf
+ * exponent and the miss rate are {@code @Param}s of the states, set with
+ * {@code -p zipf=0.5 -p missRate=0.2}.
+ * </p>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+final class Inputs
+{
+    /** Number of inputs per state, a power of two. */
+    static final int SIZE = 1 << 16;
+
+    static final long SEED = 42;
+
+    private Inputs()
+    {
+    }
+
+    /**
+     * Get the index of the input after {@code i}, wrapping around.
+     */
+    static int next(int i)
+    {
+        return (i + 1) & (SIZE - 1);
+    }
+
+    /**
+     * Draw {@code count} countries with Zipf-distributed popularity, of
+     * exponent {@code zipf} (0 for uniform); the popularity order is a random
+     * permutation of the constants.
+     */
+    static CountryInfo[] countries(int count, double zipf, Random random)
+    {
+        CountryInfo[] values = CountryInfo.values();
+
+        for (int i = values.length - 1; i > 0; i--)
+        {
+            int j = random.nextInt(i + 1);
+            CountryInfo t = values[i];
+            values[i] = values[j];
+            values[j] = t;
+        }
+
+        double[] cdf = new double[values.length];
+        double total = 0;
+
+        for (int rank = 0; rank < values.length; rank++)
+        {
+            total += 1.0 / Math.pow(rank + 1, zipf);
+            cdf[rank] = total;
+        }
+
+        CountryInfo[] drawn = new CountryInfo[count];
+
+        for (int i = 0; i < count; i++)
+        {
+            double u = random.nextDouble() * total;
+            int lo = 0, hi = cdf.length - 1;
+
+            while (lo < hi)
+            {
+                int mid = (lo + hi) >>> 1;
+                if (cdf[mid] < u) { lo = mid + 1; } else { hi = mid; }
+            }
+
+            drawn[i] = values[lo];
+        }
+
+        return drawn;
+    }
+
+    /**
+     * Whether to replace the next input by an invalid one.
+     */
+    static boolean miss(double rate, Random random)
+    {
+        return random.nextDouble() < rate;
+    }
+
+    /**
+     * Mix the case of an ASCII code at random.
+     */
+    static String mixCase(String code, Random random)
+    {
+        char[] chars = code.toCharArray();
+
+        for (int i = 0; i < chars.length; i++)
+        {
+            if (random.nextBoolean()) { chars[i] = Character.toLowerCase(chars[i]); }
+        }
+
+        return new String(chars);
+    }
+
+    static long ordinal(CountryInfo ci)
+    {
+        return null == ci ? -1 : ci.ordinal();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link IpRangeTable}: loading a synthetic table from CSV against mapping
+ * its binary form, and lookups by numeric and text address on the mapped
+ * table.
+ *
+ * <pre>
+ * java -jar jmh/target/benchmarks.jar IpLookupBenchmark -prof gc [-p ranges=300000]
+ * </pre>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IpLookupBenchmark
+{
+    @Param({ "300000" })
+    int ranges;
+
+    private String csv;
+    private Path file;
+    private IpRangeTable mapped;
+    private int[] v4;
+    private String[] v4Text;
+    private String[] v6Text;
+    private int cursor;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        Random random = new Random(Inputs.SEED);
+        CountryInfo[] countries = Inputs.countries(ranges, 1.0, random);
+
+        // Contiguous IPv4 ranges of random width, and a quarter as many IPv6 /48s.
+        StringBuilder sb = new StringBuilder();
+        long address = 1L << 24;
+
+        for (int i = 0; i < ranges; i++)
+        {
+            long width = 1 + random.nextInt(1 << 12);
+            sb.append(address).append(',').append(address + width - 1).append(',').append(countries[i].getISOa2()).append('\n');
+            address += width;
+        }
+
+        for (int i = 0; i < ranges / 4; i++)
+        {
+            String prefix = String.format("2a%02x:%04x:%04x", i >>> 16 & 0xFF, i & 0xFFFF, 0);
+            sb.append(prefix).append("::,").append(prefix).append(":ffff:ffff:ffff:ffff:ffff,")
+              .append(countries[i].getISOa3()).append('\n');
+        }
+
+        csv = sb.toString();
+        file = Files.createTempFile("ip-ranges", ".bin");
+        IpRangeTable.readCsv(new StringReader(csv)).write(file);
+        mapped = IpRangeTable.map(file);
+
+        v4 = new int[Inputs.SIZE];
+        v4Text = new String[Inputs.SIZE];
+        v6Text = new String[Inputs.SIZE];
+
+        for (int i = 0; i < Inputs.SIZE; i++)
+        {
+            v4[i] = (int) ((1L << 24) + (long) (random.nextDouble() * (address - (1L << 24))));
+            v4Text[i] = (v4[i] >>> 24) + "." + (v4[i] >>> 16 & 0xFF) + "." + (v4[i] >>> 8 & 0xFF) + "." + (v4[i] & 0xFF);
+            int r = random.nextInt(ranges / 4);
+            v6Text[i] = String.format("2a%02x:%04x:0:%x::%x", r >>> 16 & 0xFF, r & 0xFFFF, random.nextInt(65536), random.nextInt(65536));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public IpRangeTable readCsv() throws IOException
+    {
+        return IpRangeTable.readCsv(new StringReader(csv));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public IpRangeTable map() throws IOException
+    {
+        return IpRangeTable.map(file);
+    }
+
+    @Benchmark
+    public long forIPv4()
+    {
+        return Inputs.ordinal(mapped.forIPv4(v4[cursor = Inputs.next(cursor)]));
+    }
+
+    @Benchmark
+    public long forAddressIPv4Text()
+    {
+        return Inputs.ordinal(mapped.forAddress(v4Text[cursor = Inputs.next(cursor)]));
+    }
+
+    @Benchmark
+    public long forAddressIPv6Text()
+    {
+        return Inputs.ordinal(mapped.forAddress(v6Text[cursor = Inputs.next(cursor)]));
+    }
+}
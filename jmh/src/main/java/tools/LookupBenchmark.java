@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Baseline for the single-value lookups of {@link CountryInfo}: the throwing
+ * and non-throwing ISO lookups with realistic inputs, and the getter scans
+ * over {@code values()} the indexes replace.
+ *
+ * <pre>
+ * mvn -B package
+ * java -jar jmh/target/benchmarks.jar LookupBenchmark -prof gc [-p zipf=1.0] [-p missRate=0.08]
+ * </pre>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark
+{
+    @Param({ "1.0" })
+    double zipf;
+
+    @Param({ "0.08" })
+    double missRate;
+
+    private String[] alpha2;
+    private String[] alpha3;
+    private String[] mixed;
+    private String[] withMisses;
+    private String[] ioc;
+    private int[] numeric;
+    private int[] numericWithMisses;
+    private int cursor;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(Inputs.SEED);
+        int n = Inputs.SIZE;
+        CountryInfo[] drawn = Inputs.countries(n, zipf, random);
+
+        alpha2 = new String[n];
+        alpha3 = new String[n];
+        mixed = new String[n];
+        withMisses = new String[n];
+        ioc = new String[n];
+        numeric = new int[n];
+        numericWithMisses = new int[n];
+
+        for (int i = 0; i < n; i++)
+        {
+            CountryInfo ci = drawn[i];
+            alpha2[i] = ci.getISOa2();
+            alpha3[i] = ci.getISOa3();
+            mixed[i] = Inputs.mixCase(random.nextBoolean() ? alpha2[i] : alpha3[i], random);
+            withMisses[i] = Inputs.miss(missRate, random) ? (random.nextBoolean() ? "ZZ" : "QQQ") : alpha2[i];
+            ioc[i] = ci.getIOC().isEmpty() ? "ZZZ" : ci.getIOC();
+            numeric[i] = ci.getISONum();
+            numericWithMisses[i] = Inputs.miss(missRate, random) ? 999 : ci.getISONum();
+        }
+    }
+
+    @Benchmark
+    public long forISOAlpha2()
+    {
+        return CountryInfo.forISO(alpha2[cursor = Inputs.next(cursor)]).ordinal();
+    }
+
+    @Benchmark
+    public long forISOAlpha3()
+    {
+        return CountryInfo.forISO(alpha3[cursor = Inputs.next(cursor)]).ordinal();
+    }
+
+    @Benchmark
+    public long forISOMixedCase()
+    {
+        return CountryInfo.forISO(mixed[cursor = Inputs.next(cursor)]).ordinal();
+    }
+
+    @Benchmark
+    public long forISOWithMisses()
+    {
+        try
+        {
+            return CountryInfo.forISO(withMisses[cursor = Inputs.next(cursor)]).ordinal();
+        }
+        catch (IllegalArgumentException e)
+        {
+            return -1;
+        }
+    }
+
+    @Benchmark
+    public long tryForISOWithMisses()
+    {
+        return Inputs.ordinal(CountryInfo.tryForISO(withMisses[cursor = Inputs.next(cursor)]));
+    }
+
+    @Benchmark
+    public long forISONumeric()
+    {
+        return CountryInfo.forISO(numeric[cursor = Inputs.next(cursor)]).ordinal();
+    }
+
+    @Benchmark
+    public long forISONumericWithMisses()
+    {
+        try
+        {
+            return CountryInfo.forISO(numericWithMisses[cursor = Inputs.next(cursor)]).ordinal();
+        }
+        catch (IllegalArgumentException e)
+        {
+            return -1;
+        }
+    }
+
+    @Benchmark
+    public long tryForISONumericWithMisses()
+    {
+        return Inputs.ordinal(CountryInfo.tryForISO(numericWithMisses[cursor = Inputs.next(cursor)]));
+    }
+
+    @Benchmark
+    public long scanValuesByISOa2()
+    {
+        String code = alpha2[cursor = Inputs.next(cursor)];
+
+        for (CountryInfo ci : CountryInfo.values())
+        {
+            if (ci.getISOa2().equals(code)) { return ci.ordinal(); }
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public long scanValuesByIOC()
+    {
+        String code = ioc[cursor = Inputs.next(cursor)];
+
+        for (CountryInfo ci : CountryInfo.values())
+        {
+            if (ci.getIOC().equals(code)) { return ci.ordinal(); }
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public long tryForCodeIOC()
+    {
+        return Inputs.ordinal(CountryInfo.tryForCode(CodeScheme.IOC, ioc[cursor = Inputs.next(cursor)]));
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link CountryRegistry}: reload latency from CSV and from a binary
+ * snapshot, and reader latency with and without a concurrent reloader.
+ *
+ * <p>
+ * The {@code readers} groups run four reader threads against one registry;
+ * in {@code reloading} a fifth thread reloads the snapshot in a loop.
+ * </p>
+ *
+ * <pre>
+ * java -jar jmh/target/benchmarks.jar ReloadBenchmark -prof gc
+ * </pre>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReloadBenchmark
+{
+    private Path csv;
+    private Path snapshot;
+    private CountryRegistry registry;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        CountryDataset initial = CountryDataset.fromCountryInfo();
+
+        csv = Files.createTempFile("countries", ".csv");
+        snapshot = Files.createTempFile("countries", ".bin");
+
+        try (Writer out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) { initial.writeCsv(out); }
+        try (OutputStream out = Files.newOutputStream(snapshot)) { initial.writeSnapshot(out); }
+
+        registry = new CountryRegistry(initial);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(csv);
+        Files.deleteIfExists(snapshot);
+    }
+
+    /**
+     * Per-thread reader inputs: IOC codes where there is one, else alpha-3.
+     */
+    @State(Scope.Thread)
+    public static class Codes
+    {
+        String[] codes;
+        int cursor;
+
+        @Setup
+        public void setup()
+        {
+            CountryInfo[] drawn = Inputs.countries(Inputs.SIZE, 1.0, new Random(Inputs.SEED));
+            codes = new String[Inputs.SIZE];
+
+            for (int i = 0; i < codes.length; i++)
+            {
+                codes[i] = drawn[i].getIOC().isEmpty() ? drawn[i].getISOa3() : drawn[i].getIOC();
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("reloadCsv")
+    public CountryDataset reloadCsv() throws IOException
+    {
+        return registry.reload(csv);
+    }
+
+    @Benchmark
+    @Group("reloadSnapshot")
+    public CountryDataset reloadSnapshot() throws IOException
+    {
+        return registry.reload(snapshot);
+    }
+
+    @Benchmark
+    @Group("readers")
+    @GroupThreads(4)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public CountryRecord read(Codes codes)
+    {
+        return registry.get().tryForCode(CodeScheme.IOC, codes.codes[codes.cursor = Inputs.next(codes.cursor)]);
+    }
+
+    @Benchmark
+    @Group("reloading")
+    @GroupThreads(4)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public CountryRecord readWhileReloading(Codes codes)
+    {
+        return read(codes);
+    }
+
+    @Benchmark
+    @Group("reloading")
+    @GroupThreads(1)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public CountryDataset reloader() throws IOException
+    {
+        return registry.reload(snapshot);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Free-form resolution with {@link Resolver}: uncached, and with caches of
+ * several sizes, over inputs in mixed forms (ISO codes in either case,
+ * numeric codes, IOC and FIPS codes, names, dialing prefixes and host
+ * names) with a share of junk. Prints the cache hit rate of each trial.
+ *
+ * <pre>
+ * java -jar jmh/target/benchmarks.jar ResolveBenchmark -prof gc [-p cacheSize=0,256,4096]
+ * </pre>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolveBenchmark
+{
+    @Param({ "1.0" })
+    double zipf;
+
+    @Param({ "0.08" })
+    double missRate;
+
+    @Param({ "0", "256", "4096" })
+    int cacheSize;
+
+    private String[] inputs;
+    private Resolver resolver;
+    private int cursor;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(Inputs.SEED);
+        CountryInfo[] drawn = Inputs.countries(Inputs.SIZE, zipf, random);
+        inputs = new String[Inputs.SIZE];
+
+        for (int i = 0; i < inputs.length; i++)
+        {
+            CountryInfo ci = drawn[i];
+
+            if (Inputs.miss(missRate, random))
+            {
+                inputs[i] = "unknown-" + random.nextInt(100000);
+                continue;
+            }
+
+            switch (random.nextInt(8))
+            {
+                case 0:     inputs[i] = ci.getISOa2().toLowerCase(); break;
+                case 1:     inputs[i] = ci.getISOa3(); break;
+                case 2:     inputs[i] = String.valueOf(ci.getISONum()); break;
+                case 3:     inputs[i] = ci.getCountryName(); break;
+                case 4:     inputs[i] = "+" + ci.getDial(); break;
+                case 5:     inputs[i] = "www.example" + ci.getCCTLD(); break;
+                case 6:     inputs[i] = ci.getIOC(); break;
+                default:    inputs[i] = ci.getFIPS(); break;
+            }
+        }
+
+        resolver = new Resolver(cacheSize);
+    }
+
+    @TearDown
+    public void report()
+    {
+        if (cacheSize > 0) { System.out.printf("%ncache hit rate %.1f%%%n", 100 * resolver.getCacheHitRate()); }
+    }
+
+    @Benchmark
+    public long resolve()
+    {
+        return Inputs.ordinal(resolver.resolve(inputs[cursor = Inputs.next(cursor)]).getCountry());
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2013      'Redger' I. Cornice <idriss.cornice@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tools;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cold-start cost of {@link CountryInfo}: class initialization time and
+ * retained heap, then the time and heap of building each lookup index on
+ * first use.
+ *
+ * <p>
+ * Every measurement is a single shot in a fresh JVM, so the figures are
+ * first-call times including class loading. The secondary result
+ * {@code retainedBytes} is the growth of the used heap across the shot,
+ * each side measured after full collections, i.e. what the shot leaves
+ * reachable; {@code -prof gc} adds the bytes allocated, garbage included.
+ * {@code classInit} only touches {@link CountryInfo#getISOa3()};
+ * {@code firstUse} with {@code index=all} builds every index.
+ * </p>
+ *
+ * <pre>
+ * java -jar jmh/target/benchmarks.jar StartupBenchmark -prof gc [-f 10]
+ * </pre>
+ *
+ * @author 'Redger' (I. Cornice)
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark
+{
+    @Benchmark
+    public String classInit(Heap heap)
+    {
+        return CountryInfo.FRA.getISOa3();
+    }
+
+    /**
+     * Measures index building only: the state is created, and with it the
+     * CountryInfo constants initialized, before the shot.
+     */
+    @Benchmark
+    public Object firstUse(Index index, Heap heap)
+    {
+        return build(index.index);
+    }
+
+    @State(Scope.Thread)
+    public static class Index
+    {
+        @Param({ "iso", "ITU", "FIPS", "IOC", "FIFA", "DS", "WMO", "GAUL", "MARC", "dial", "cctld", "name", "all" })
+        String index;
+
+        final String constants = CountryInfo.FRA.getISOa3();
+    }
+
+    /**
+     * Used heap after full collections, before and after the shot. The
+     * iteration-level setup runs after the trial-level state (and so the
+     * CountryInfo constants of {@link Index}) has been created.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Heap
+    {
+        private long before;
+
+        /** Bytes left reachable by the shot. */
+        public long retainedBytes;
+
+        @Setup(Level.Iteration)
+        public void before()
+        {
+            // The first collection also reclaims JVM startup garbage.
+            usedHeap();
+            before = usedHeap();
+        }
+
+        @TearDown(Level.Iteration)
+        public void after()
+        {
+            retainedBytes = usedHeap() - before;
+        }
+    }
+
+    private static long usedHeap()
+    {
+        for (int i = 0; i < 3; i++) { System.gc(); }
+
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static Object build(String index)
+    {
+        switch (index)
+        {
+            case "iso":     return CountryInfo.tryForISO("FR");
+            case "dial":    return CountryInfo.forPhoneNumber("+33");
+            case "cctld":   return CountryInfo.tryForHostname("example.fr");
+            case "name":    return CountryInfo.tryForName("France");
+            case "all":
+                List<Object> all = new ArrayList<>();
+                for (String each : Arrays.asList("iso", "dial", "cctld", "name")) { all.add(build(each)); }
+                for (CodeScheme scheme : CodeScheme.values()) { all.add(CountryInfo.tryForCode(scheme, "X")); }
+                return all;
+            default:        return CountryInfo.tryForCode(CodeScheme.valueOf(index), "X");
+        }
+    }
+}